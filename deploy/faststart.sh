@@ -0,0 +1,52 @@
+#!/bin/sh
+# Entry point of the faststart image.
+#
+# The first start runs with Spring AOT and the AppCDS archive, loads the FAQ
+# and takes a CRaC checkpoint right after the context refresh, before the
+# bot connects to Telegram. Every later start restores that checkpoint and
+# the lifecycle beans (polling session, metrics server) connect afresh. If
+# checkpointing is not possible (no CRaC privileges), the bot just runs
+# with AOT and AppCDS.
+#
+# The checkpoint is a memory image: it contains the bot token and database
+# credentials, so keep $CRAC_CHECKPOINT_DIR on a private volume. For the same
+# reason it is only restored with the configuration it was taken with: it is
+# keyed by the jar and everything Spring reads at startup, i.e. the
+# environment (BOT_TOKEN, SPRING_DATASOURCE_*, JAVA_TOOL_OPTIONS, ...) and a
+# config/ directory if one is mounted. Changing any of them takes a new one.
+set -e
+cd /app
+CHECKPOINT=${CRAC_CHECKPOINT_DIR:-/crac}
+OPTS="-XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=faststart"
+
+# Variables that differ per container (HOSTNAME is the container id) are left
+# out, so a recreated container can still restore
+checkpoint_key() {
+    {
+        sha1sum app.jar
+        env | grep -Ev '^(HOSTNAME|HOME|PWD|OLDPWD|SHLVL|TERM|_)=' | LC_ALL=C sort
+        if [ -d config ]; then
+            find config -type f -exec sha1sum {} + | LC_ALL=C sort
+        fi
+    } | sha1sum | cut -d ' ' -f 1
+}
+KEY=$(checkpoint_key)
+
+if [ "$(cat "$CHECKPOINT/checkpoint.key" 2>/dev/null)" = "$KEY" ]; then
+    exec java -XX:CRaCRestoreFrom="$CHECKPOINT"
+fi
+
+# No checkpoint for this build and configuration yet
+mkdir -p "$CHECKPOINT"
+rm -rf "${CHECKPOINT:?}"/*
+# The FAQ is loaded and synced synchronously (no mapped snapshot), so the
+# checkpoint holds the warm corpus and no sync is in flight
+java $OPTS -XX:CRaCCheckpointTo="$CHECKPOINT" -Dspring.context.checkpoint=onRefresh -Dbot.faq.snapshot= \
+    -jar app.jar || true
+if ls "$CHECKPOINT"/*.img >/dev/null 2>&1; then
+    echo "$KEY" > "$CHECKPOINT/checkpoint.key"
+    exec java -XX:CRaCRestoreFrom="$CHECKPOINT"
+fi
+
+echo "No CRaC checkpoint was taken; starting without it." >&2
+exec java $OPTS -jar app.jar
@@ -0,0 +1,77 @@
+package com.education.italy;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import com.education.italy.service.FaqIds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic FAQ corpus for benchmarks: English items over a
+ * vocabulary of domain words and generated filler, plus queries drawn from
+ * the items (some with a typo) so that searches have realistic hit rates.
+ */
+public final class BenchmarkCorpus {
+
+    private static final String[] DOMAIN = {
+            "visa", "permit", "residence", "scholarship", "university", "admission", "documents", "apostille",
+            "translation", "embassy", "consulate", "deadline", "tuition", "housing", "insurance", "codice",
+            "fiscale", "enrollment", "exam", "language", "certificate", "bank", "account", "arrival", "questura"
+    };
+    private static final String[] SYLLABLES = {"ra", "to", "mi", "ve", "lu", "ca", "no", "si", "pe", "da", "ri", "go"};
+
+    private final List<FaqItem> items;
+    private final List<String> queries;
+
+    public BenchmarkCorpus(int size) {
+        Random random = new Random(42);
+        List<String> vocabulary = new ArrayList<>(List.of(DOMAIN));
+        while (vocabulary.size() < Math.max(500, size / 2)) {
+            StringBuilder word = new StringBuilder();
+            for (int s = 2 + random.nextInt(3); s > 0; s--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            vocabulary.add(word.toString());
+        }
+
+        Category[] categories = Category.values();
+        items = new ArrayList<>(size);
+        queries = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String question = words(random, vocabulary, 6 + random.nextInt(5)) + "?";
+            items.add(new FaqItem(FaqIds.of(String.valueOf(i + 1), "en"), categories[i % categories.length], "en",
+                    question, words(random, vocabulary, 25), words(random, vocabulary, 4)));
+            if (queries.size() < 64) {
+                String[] parts = question.substring(0, question.length() - 1).split(" ");
+                String query = parts[1] + " " + parts[2] + " " + parts[3];
+                // Every fourth query has a transposed pair of letters
+                queries.add(queries.size() % 4 == 3 && query.length() > 4
+                        ? query.substring(0, 2) + query.charAt(3) + query.charAt(2) + query.substring(4)
+                        : query);
+            }
+        }
+    }
+
+    public List<FaqItem> items() {
+        return items;
+    }
+
+    public List<String> queries() {
+        return queries;
+    }
+
+    private static String words(Random random, List<String> vocabulary, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            // Skewed towards the head of the vocabulary, like real text
+            int index = (int) (vocabulary.size() * Math.pow(random.nextDouble(), 2));
+            text.append(vocabulary.get(index));
+        }
+        return text.toString();
+    }
+}
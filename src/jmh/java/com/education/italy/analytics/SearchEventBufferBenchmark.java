@@ -0,0 +1,73 @@
+package com.education.italy.analytics;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import com.education.italy.service.SearchHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording one search on the update's thread, with the writer
+ * draining concurrently (as in production) and with nobody draining, where
+ * every event after the first 64k is dropped. Both should stay well under
+ * a microsecond and allocate nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchEventBufferBenchmark {
+
+    private static final List<SearchHit> HITS = List.of(new SearchHit(
+            new FaqItem("en-1", Category.ARRIVAL, "en", "How do I get a codice fiscale?", "...", ""), 0.8));
+
+    private SearchEventBuffer drained;
+    private SearchEventBuffer full;
+    private Thread writer;
+
+    @Setup
+    public void setUp() {
+        drained = new SearchEventBuffer(65_536);
+        full = new SearchEventBuffer(65_536);
+        writer = Thread.ofPlatform().daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (drained.drain(2000, event -> { }) == 0) {
+                    Thread.onSpinWait();
+                }
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        writer.interrupt();
+        writer.join();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean recordWhileDraining() {
+        return drained.offer(System.currentTimeMillis(), "en", "en:codice fiscale", HITS, 1500);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean recordWhenFull() {
+        return full.offer(System.currentTimeMillis(), "en", "en:codice fiscale", HITS, 1500);
+    }
+}
@@ -0,0 +1,73 @@
+package com.education.italy.bot;
+
+import com.education.italy.model.Category;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and dispatching one callback: the old startsWith/split chain
+ * against {@link CallbackRouter}. Run with the gc profiler (the default for
+ * this project) and compare gc.alloc.rate.norm per callback kind.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallbackRouterBenchmark {
+
+    @Param({"LANG_EN", "MENU", "TOPICS", "CAT_ARRIVAL", "FAQ_en-42"})
+    public String data;
+
+    private CallbackRouter router;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        router = CallbackRouter.builder()
+                .prefix(Callbacks.LANG, Callbacks::language, (chatId, payload) -> this.blackhole.consume(payload))
+                .exact(Callbacks.MENU, chatId -> this.blackhole.consume(chatId))
+                .exact(Callbacks.TOPICS, chatId -> this.blackhole.consume(chatId))
+                .exact(Callbacks.ASK, chatId -> this.blackhole.consume(chatId))
+                .prefix(Callbacks.CATEGORY, Callbacks::category, (chatId, payload) -> this.blackhole.consume(payload))
+                .prefix(Callbacks.FAQ, Callbacks::faq, (chatId, payload) -> this.blackhole.consume(payload))
+                .build();
+    }
+
+    @Benchmark
+    public boolean router() {
+        return router.route(42L, data);
+    }
+
+    @Benchmark
+    public boolean splitChain(Blackhole blackhole) {
+        if (data.startsWith("LANG_")) {
+            blackhole.consume(data.split("_")[1].toLowerCase());
+        } else if (data.equals("MENU")) {
+            blackhole.consume(42L);
+        } else if (data.equals("TOPICS")) {
+            blackhole.consume(42L);
+        } else if (data.startsWith("CAT_")) {
+            blackhole.consume(Category.valueOf(data.split("_")[1]));
+        } else if (data.startsWith("FAQ_")) {
+            blackhole.consume(data.split("_")[1]);
+        } else {
+            return false;
+        }
+        return true;
+    }
+}
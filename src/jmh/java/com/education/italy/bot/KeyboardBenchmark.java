@@ -0,0 +1,70 @@
+package com.education.italy.bot;
+
+import com.education.italy.model.Category;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the "topics" message: the old per-call construction against the
+ * prebuilt templates. Run with the gc profiler to compare allocation per op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyboardBenchmark {
+
+    private final long chatId = 123456789L;
+    private final String lang = "en";
+
+    @Benchmark
+    public SendMessage topicsRebuiltPerCall() {
+        SendMessage message = new SendMessage();
+        message.setChatId(String.valueOf(chatId));
+        message.setText(lang.equals("ru") ? "Выберите тему:" : "Select a topic:");
+
+        InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
+        for (Category cat : Category.values()) {
+            List<InlineKeyboardButton> row = new ArrayList<>();
+            InlineKeyboardButton btn = new InlineKeyboardButton();
+            btn.setText(cat.name());
+            btn.setCallbackData("CAT_" + cat.name());
+            row.add(btn);
+            rows.add(row);
+        }
+        var backBtn = new InlineKeyboardButton();
+        backBtn.setText(lang.equals("ru") ? "🔙 Назад" : "🔙 Back");
+        backBtn.setCallbackData("MENU");
+        rows.add(List.of(backBtn));
+        markup.setKeyboard(rows);
+        message.setReplyMarkup(markup);
+        return message;
+    }
+
+    @Benchmark
+    public SendMessage topicsFromTemplate() {
+        KeyboardTemplates.Screens screens = KeyboardTemplates.forLang(lang);
+        SendMessage message = new SendMessage();
+        message.setChatId(String.valueOf(chatId));
+        message.setText(screens.topicsText());
+        message.setReplyMarkup(screens.topics());
+        return message;
+    }
+}
@@ -0,0 +1,125 @@
+package com.education.italy.bot;
+
+import com.education.italy.BenchmarkCorpus;
+import com.education.italy.metrics.StartupMetrics;
+import com.education.italy.model.FaqItem;
+import com.education.italy.service.BotService;
+import com.education.italy.service.ChatSessionStore;
+import com.education.italy.service.DatabaseGuard;
+import com.education.italy.service.FaqContentSync;
+import com.education.italy.service.InMemorySearchEngine;
+import com.education.italy.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One update through {@link ItalyStudentBot}'s handler on the calling
+ * thread: callback parsing and dispatch, the lookups behind it and building
+ * the reply. The outbound queue has no capacity, so each reply is built and
+ * then dropped without any I/O. The user's language is already cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateHandlingBenchmark {
+
+    private static final long CHAT_ID = 123456789L;
+
+    @Param({"LANG_EN", "MENU", "TOPICS", "CAT_VISA", "FAQ"})
+    public String callback;
+
+    private ItalyStudentBot bot;
+    private Update callbackUpdate;
+    private Update textUpdate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkCorpus corpus = new BenchmarkCorpus(1000);
+        FaqContentSync stored = new FaqContentSync(null, null) {
+            @Override
+            public List<FaqItem> storedItems() {
+                return corpus.items();
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BotService botService = new BotService(null, stored, event -> { }, new InMemorySearchEngine(),
+                Optional.empty(), registry, 0);
+        botService.refreshFromDatabase();
+
+        // No repositories: the language is cached and writes stay in the (never flushed) buffer
+        UserService userService = new UserService(null, null,
+                new DatabaseGuard(Duration.ofSeconds(1), 5, Duration.ofSeconds(10), registry), event -> { }, 1000,
+                Duration.ofHours(1), Duration.ofDays(1));
+        userService.updateUserLanguage(CHAT_ID, "en");
+
+        OutboundSender sender = new OutboundSender(1000, 1000, 1000, 0, 1, Duration.ofMillis(10),
+                Duration.ZERO, registry);
+        bot = new ItalyStudentBot(botService, userService, new ChatSessionStore(1000, Duration.ofHours(1)),
+                new UpdateDispatcher(1000, Duration.ZERO), sender, 1, "https://api.telegram.org/bot", Set.of(), 6,
+                registry, new StartupMetrics(registry));
+
+        String data = callback.equals("FAQ") ? "FAQ_" + corpus.items().get(0).getId() : callback;
+        callbackUpdate = callbackUpdate(data);
+        textUpdate = textUpdate(corpus.queries().get(0));
+    }
+
+    @Benchmark
+    public Update callback() {
+        bot.handleUpdate(callbackUpdate, System.nanoTime());
+        return callbackUpdate;
+    }
+
+    @Benchmark
+    public Update textMessage() {
+        bot.handleUpdate(textUpdate, System.nanoTime());
+        return textUpdate;
+    }
+
+    private static Update callbackUpdate(String data) {
+        CallbackQuery query = new CallbackQuery();
+        query.setData(data);
+        query.setMessage(message(null));
+        Update update = new Update();
+        update.setCallbackQuery(query);
+        return update;
+    }
+
+    private static Update textUpdate(String text) {
+        Update update = new Update();
+        update.setMessage(message(text));
+        return update;
+    }
+
+    private static Message message(String text) {
+        Chat chat = new Chat();
+        chat.setId(CHAT_ID);
+        Message message = new Message();
+        message.setChat(chat);
+        message.setText(text);
+        return message;
+    }
+}
@@ -0,0 +1,136 @@
+package com.education.italy.service;
+
+import com.education.italy.BenchmarkCorpus;
+import com.education.italy.model.FaqItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BotService#search} over the in-memory index against the LIKE query
+ * the bot used to run, on an in-memory H2 database holding the same corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    // Same predicate as the derived LIKE query FaqRepository used for search
+    private static final String LIKE_QUERY = """
+            SELECT id, question FROM faq_item
+            WHERE lang = ? AND LOWER(question) LIKE ? OR lang = ? AND LOWER(keywords) LIKE ?
+            """;
+
+    @Param({"100", "1000", "10000"})
+    public int corpusSize;
+
+    private BotService botService;
+    private BotService cachedBotService;
+    private List<String> queries;
+    private int next;
+    private Connection connection;
+    private PreparedStatement likeStatement;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkCorpus corpus = new BenchmarkCorpus(corpusSize);
+        queries = corpus.queries();
+
+        // Serves the corpus as if it were stored, without a database
+        FaqContentSync stored = new FaqContentSync(null, null) {
+            @Override
+            public List<FaqItem> storedItems() {
+                return corpus.items();
+            }
+        };
+        // Result cache off, so every call reaches the index
+        botService = new BotService(null, stored, event -> { }, new InMemorySearchEngine(),
+                Optional.empty(), new SimpleMeterRegistry(), 0);
+        botService.refreshFromDatabase();
+        cachedBotService = new BotService(null, stored, event -> { }, new InMemorySearchEngine(),
+                Optional.empty(), new SimpleMeterRegistry(), 10_000);
+        cachedBotService.refreshFromDatabase();
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:search" + corpusSize + ";DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS faq_item");
+            statement.execute("CREATE TABLE faq_item (id VARCHAR(50) PRIMARY KEY, category VARCHAR(32), "
+                    + "lang VARCHAR(10), question CLOB, answer CLOB, keywords CLOB)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO faq_item VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (FaqItem item : corpus.items()) {
+                insert.setString(1, item.getId());
+                insert.setString(2, item.getCategory().name());
+                insert.setString(3, item.getLang());
+                insert.setString(4, item.getQuestion());
+                insert.setString(5, item.getAnswer());
+                insert.setString(6, item.getKeywords());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        likeStatement = connection.prepareStatement(LIKE_QUERY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public List<SearchHit> indexSearch() {
+        return botService.search(nextQuery(), "en");
+    }
+
+    @Benchmark
+    public List<SearchHit> cachedSearch() {
+        return cachedBotService.search(nextQuery(), "en");
+    }
+
+    @Benchmark
+    public List<String> h2LikeSearch() throws SQLException {
+        String pattern = "%" + TextNormalizer.fold(nextQuery()) + "%";
+        likeStatement.setString(1, "en");
+        likeStatement.setString(2, pattern);
+        likeStatement.setString(3, "en");
+        likeStatement.setString(4, pattern);
+        List<String> ids = new ArrayList<>();
+        try (ResultSet rows = likeStatement.executeQuery()) {
+            while (rows.next()) {
+                ids.add(rows.getString(1));
+            }
+        }
+        return ids;
+    }
+
+    private String nextQuery() {
+        String query = queries.get(next);
+        next = (next + 1) % queries.size();
+        return query;
+    }
+}
@@ -0,0 +1,9 @@
+package com.education.italy.analytics;
+
+/**
+ * Searches, misses and summed latency in one hour (start, epoch millis) and
+ * language, for one normalized question or, when {@code query} is null, for
+ * all of them.
+ */
+public record HourlyCount(long hour, String lang, String query, long searches, long misses, long latencyMicros) {
+}
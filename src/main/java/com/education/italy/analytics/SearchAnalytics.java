@@ -0,0 +1,184 @@
+package com.education.italy.analytics;
+
+import com.education.italy.repository.SearchAnalyticsRepository;
+import com.education.italy.service.SearchHit;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records every free-text search (time, language, normalized question,
+ * matched FAQ ids, latency) for analysis, in particular the questions the
+ * bot has no answer for.
+ * <p>
+ * Recording only puts the event into a {@link SearchEventBuffer}; a
+ * background writer drains it every {@code bot.analytics.flush-interval}
+ * in batches of up to {@code bot.analytics.batch-size}, appends them to
+ * search_event and adds them to the hourly counters, both in one
+ * transaction. Analytics are lossy by design: events are dropped when the
+ * buffer is full, and a batch that fails to write is logged and discarded
+ * as a whole, so the counters never disagree with the event log. The tables are created by the
+ * writer before its first batch, so startup never touches the database;
+ * until that succeeds events stay buffered and creation is retried on the
+ * next flush. A buffer size of 0 leaves this bean (and the repository) out.
+ */
+@Component
+@ConditionalOnExpression("${bot.analytics.buffer-size:65536} > 0")
+public class SearchAnalytics {
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final Comparator<HourlyCount> LOCK_ORDER = Comparator.comparingLong(HourlyCount::hour)
+            .thenComparing(HourlyCount::lang)
+            .thenComparing(HourlyCount::query, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final SearchAnalyticsRepository repository;
+    private final TransactionTemplate transaction;
+    private final SearchEventBuffer buffer;
+    private final int batchSize;
+    private final List<SearchEvent> batch = new ArrayList<>();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final ScheduledExecutorService writer;
+    // Only touched under the flush lock
+    private boolean schemaReady;
+
+    public SearchAnalytics(SearchAnalyticsRepository repository, PlatformTransactionManager transactionManager,
+                           @Value("${bot.analytics.buffer-size:65536}") int bufferSize,
+                           @Value("${bot.analytics.batch-size:2000}") int batchSize,
+                           @Value("${bot.analytics.flush-interval:PT1S}") Duration flushInterval,
+                           MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.buffer = new SearchEventBuffer(bufferSize);
+        this.writer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("search-analytics").daemon().factory());
+        long period = flushInterval.toMillis();
+        writer.scheduleWithFixedDelay(this::flushSafely, period, period, TimeUnit.MILLISECONDS);
+
+        FunctionCounter.builder("bot.analytics.events", buffer, SearchEventBuffer::recorded)
+                .description("Search events by outcome; dropped = buffer full, failed = lost with a failed batch")
+                .tag("outcome", "recorded")
+                .register(meterRegistry);
+        FunctionCounter.builder("bot.analytics.events", buffer, SearchEventBuffer::dropped)
+                .tag("outcome", "dropped")
+                .register(meterRegistry);
+        FunctionCounter.builder("bot.analytics.events", written, LongAdder::sum)
+                .tag("outcome", "written")
+                .register(meterRegistry);
+        FunctionCounter.builder("bot.analytics.events", failed, LongAdder::sum)
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        Gauge.builder("bot.analytics.buffer.size", buffer, SearchEventBuffer::size)
+                .description("Search events waiting for the writer")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Called on the update's thread; never blocks. {@code key} is the
+     * {@link com.education.italy.service.QueryResultCache#key} of the
+     * question.
+     */
+    public void record(String lang, String key, List<SearchHit> hits, long latencyNanos) {
+        buffer.offer(System.currentTimeMillis(), lang, key, hits, latencyNanos);
+    }
+
+    /**
+     * Writes everything buffered so far, batch by batch.
+     *
+     * @return the number of events written
+     */
+    public synchronized int flush() {
+        if (!schemaReady) {
+            if (buffer.size() == 0) {
+                return 0;
+            }
+            // Throws while the database is unreachable; events wait in the buffer
+            repository.createSchema();
+            schemaReady = true;
+        }
+        int total = 0;
+        int drained;
+        do {
+            batch.clear();
+            drained = buffer.drain(batchSize, batch::add);
+            if (drained > 0) {
+                try {
+                    transaction.executeWithoutResult(status -> {
+                        repository.insertEvents(batch);
+                        repository.addHourly(aggregate(batch));
+                    });
+                } catch (RuntimeException e) {
+                    failed.add(drained);
+                    throw e;
+                }
+                written.add(drained);
+                total += drained;
+            }
+        } while (drained == batchSize);
+        batch.clear();
+        return total;
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to write search analytics, batch dropped: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Per hour and language: one count over all questions and one per
+     * normalized question, in lock order.
+     */
+    static List<HourlyCount> aggregate(List<SearchEvent> events) {
+        Map<Bucket, long[]> counts = new HashMap<>();
+        for (SearchEvent event : events) {
+            long hour = event.timestamp() - Math.floorMod(event.timestamp(), HOUR_MILLIS);
+            long miss = event.miss() ? 1 : 0;
+            long latencyMicros = event.latencyNanos() / 1000;
+            add(counts, new Bucket(hour, event.lang(), null), miss, latencyMicros);
+            add(counts, new Bucket(hour, event.lang(), event.query()), miss, 0);
+        }
+        List<HourlyCount> result = new ArrayList<>(counts.size());
+        counts.forEach((bucket, sums) -> result.add(
+                new HourlyCount(bucket.hour(), bucket.lang(), bucket.query(), sums[0], sums[1], sums[2])));
+        result.sort(LOCK_ORDER);
+        return result;
+    }
+
+    private static void add(Map<Bucket, long[]> counts, Bucket bucket, long miss, long latencyMicros) {
+        long[] sums = counts.computeIfAbsent(bucket, b -> new long[3]);
+        sums[0]++;
+        sums[1] += miss;
+        sums[2] += latencyMicros;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        flushSafely();
+    }
+
+    private record Bucket(long hour, String lang, String query) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.education.italy.analytics;
+
+import java.util.List;
+
+/**
+ * One free-text question: when it was asked (epoch millis), in which
+ * language, the normalized text, the FAQ ids it matched (best first, empty
+ * for a miss) and how long the search took.
+ */
+public record SearchEvent(long timestamp, String lang, String query, List<String> resultIds, long latencyNanos) {
+
+    public boolean miss() {
+        return resultIds.isEmpty();
+    }
+}
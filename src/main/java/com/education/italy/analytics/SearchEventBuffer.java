@@ -0,0 +1,140 @@
+package com.education.italy.analytics;
+
+import com.education.italy.service.SearchHit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, lock-free ring of search events between the threads handling
+ * updates and the single analytics writer.
+ * <p>
+ * Slots are preallocated columns, so recording an event stores a few
+ * references and longs and allocates nothing. Each slot carries a sequence
+ * number (Vyukov's bounded queue): a producer claims the next position with
+ * one CAS when the slot's sequence says it is free, fills it and publishes
+ * it by advancing the sequence; the consumer reads published slots in order
+ * and hands them back. When the ring is full the event is dropped and
+ * counted, never waited for.
+ */
+public final class SearchEventBuffer {
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final long[] timestamps;
+    private final String[] langs;
+    private final String[] keys;
+    private final Object[] hits;
+    private final long[] latencies;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    // Only written by the consumer; volatile for size()
+    private volatile long head;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public SearchEventBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.timestamps = new long[size];
+        this.langs = new String[size];
+        this.keys = new String[size];
+        this.hits = new Object[size];
+        this.latencies = new long[size];
+    }
+
+    /**
+     * Records a search, or drops it if the ring is full. {@code key} is the
+     * normalized question prefixed by the language, as built by
+     * {@link com.education.italy.service.QueryResultCache#key}; {@code results}
+     * must not be modified afterwards.
+     */
+    public boolean offer(long timestamp, String lang, String key, List<SearchHit> results, long latencyNanos) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long difference = sequences.getAcquire(slot) - position;
+            if (difference == 0) {
+                if (tail.weakCompareAndSetVolatile(position, position + 1)) {
+                    timestamps[slot] = timestamp;
+                    langs[slot] = lang;
+                    keys[slot] = key;
+                    hits[slot] = results;
+                    latencies[slot] = latencyNanos;
+                    sequences.setRelease(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The writer has not drained this slot yet: full
+                dropped.increment();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hands up to {@code max} published events to {@code sink}, oldest
+     * first. Must only be called from one thread at a time.
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(int max, Consumer<SearchEvent> sink) {
+        int drained = 0;
+        long position = head;
+        while (drained < max) {
+            int slot = (int) position & mask;
+            if (sequences.getAcquire(slot) != position + 1) {
+                break;
+            }
+            String lang = langs[slot];
+            String key = keys[slot];
+            SearchEvent event = new SearchEvent(timestamps[slot], lang, key.substring(lang.length() + 1),
+                    resultIds((List<SearchHit>) hits[slot]), latencies[slot]);
+            langs[slot] = null;
+            keys[slot] = null;
+            hits[slot] = null;
+            sequences.setRelease(slot, position + mask + 1);
+            head = ++position;
+            drained++;
+            sink.accept(event);
+        }
+        return drained;
+    }
+
+    private static List<String> resultIds(List<SearchHit> results) {
+        String[] ids = new String[results.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = results.get(i).item().getId();
+        }
+        return List.of(ids);
+    }
+
+    /**
+     * Events recorded and not drained yet, approximately.
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long recorded() {
+        return tail.get();
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+}
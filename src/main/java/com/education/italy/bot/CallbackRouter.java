@@ -0,0 +1,159 @@
+package com.education.italy.bot;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * Dispatches {@code callback_data} to handlers registered by exact value or
+ * by prefix.
+ * <p>
+ * Routes are bucketed by their first character when the router is built;
+ * a lookup compares regions of the incoming string in place and the payload
+ * decoder reads from the offset after the prefix, so routing itself does not
+ * allocate. Callback data comes from the client and can be forged: anything
+ * too long, unknown, or with a payload the decoder rejects is counted and
+ * ignored.
+ */
+final class CallbackRouter {
+
+    // Telegram caps callback_data at 64 bytes; longer data cannot be ours
+    static final int MAX_DATA_LENGTH = 64;
+
+    private final Route<?>[][] byFirstChar;
+    private final LongAdder rejected = new LongAdder();
+
+    private CallbackRouter(Route<?>[][] byFirstChar) {
+        this.byFirstChar = byFirstChar;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Turns the data after a route's prefix into a typed payload.
+     */
+    @FunctionalInterface
+    interface Decoder<P> {
+
+        /**
+         * @return the payload, or null if the data is not valid for this route
+         */
+        P decode(String data, int offset);
+    }
+
+    @FunctionalInterface
+    interface Handler<P> {
+
+        void handle(long chatId, P payload);
+    }
+
+    /**
+     * Runs the handler for {@code data}. Returns false if nothing matched or
+     * the payload was invalid.
+     */
+    boolean route(long chatId, String data) {
+        if (data != null && !data.isEmpty() && data.length() <= MAX_DATA_LENGTH) {
+            char first = data.charAt(0);
+            Route<?>[] candidates = first < byFirstChar.length ? byFirstChar[first] : null;
+            if (candidates != null) {
+                for (Route<?> route : candidates) {
+                    int matched = route.match(chatId, data);
+                    if (matched == Route.HANDLED) {
+                        return true;
+                    }
+                    if (matched == Route.INVALID) {
+                        break;
+                    }
+                }
+            }
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Callbacks that matched no route or carried an invalid payload.
+     */
+    long rejected() {
+        return rejected.sum();
+    }
+
+    static final class Builder {
+
+        private final List<Route<?>> routes = new ArrayList<>();
+
+        Builder exact(String data, LongConsumer handler) {
+            routes.add(new Route<>(data, true, (d, offset) -> Boolean.TRUE,
+                    (chatId, payload) -> handler.accept(chatId)));
+            return this;
+        }
+
+        <P> Builder prefix(String prefix, Decoder<P> decoder, Handler<P> handler) {
+            routes.add(new Route<>(prefix, false, decoder, handler));
+            return this;
+        }
+
+        CallbackRouter build() {
+            List<List<Route<?>>> buckets = new ArrayList<>();
+            // Longest first, so "FAQ_X_" would win over "FAQ_"
+            List<Route<?>> sorted = new ArrayList<>(routes);
+            sorted.sort(Comparator.comparingInt((Route<?> r) -> r.key.length()).reversed());
+            for (Route<?> route : sorted) {
+                char first = route.key.charAt(0);
+                if (first >= 128) {
+                    throw new IllegalArgumentException("Route must start with an ASCII character: " + route.key);
+                }
+                while (buckets.size() <= first) {
+                    buckets.add(null);
+                }
+                if (buckets.get(first) == null) {
+                    buckets.set(first, new ArrayList<>());
+                }
+                buckets.get(first).add(route);
+            }
+            Route<?>[][] table = new Route<?>[buckets.size()][];
+            for (int c = 0; c < table.length; c++) {
+                table[c] = buckets.get(c) == null ? null : buckets.get(c).toArray(new Route<?>[0]);
+            }
+            return new CallbackRouter(table);
+        }
+    }
+
+    private static final class Route<P> {
+
+        static final int HANDLED = 0;
+        static final int NO_MATCH = 1;
+        static final int INVALID = 2;
+
+        final String key;
+        final boolean exact;
+        final Decoder<P> decoder;
+        final Handler<P> handler;
+
+        Route(String key, boolean exact, Decoder<P> decoder, Handler<P> handler) {
+            if (key.isEmpty()) {
+                throw new IllegalArgumentException("Empty callback route");
+            }
+            this.key = key;
+            this.exact = exact;
+            this.decoder = decoder;
+            this.handler = handler;
+        }
+
+        int match(long chatId, String data) {
+            if (exact ? !data.equals(key) : !data.startsWith(key)) {
+                return NO_MATCH;
+            }
+            P payload = decoder.decode(data, key.length());
+            if (payload == null) {
+                return INVALID;
+            }
+            handler.handle(chatId, payload);
+            return HANDLED;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.education.italy.bot;
+
+import com.education.italy.model.Category;
+
+/**
+ * Typed payloads of the bot's callback buttons and their decoders for
+ * {@link CallbackRouter}. Decoders validate strictly and return null for
+ * anything the bot could not have produced; payloads without free-form
+ * content are shared constants.
+ */
+final class Callbacks {
+
+    static final String LANG = "LANG_";
+    static final String MENU = "MENU";
+    static final String TOPICS = "TOPICS";
+    static final String ASK = "ASK_INSTRUCTION";
+    static final String CATEGORY = "CAT_";
+    static final String FAQ = "FAQ_";
+    static final String PAGE = "PAGE_";
+    static final String CATEGORY_PAGE = "PAGE_C_";
+
+    // Column length of faq_item.id
+    private static final int MAX_FAQ_ID_LENGTH = 50;
+
+    private static final Language RU = new Language("ru");
+    private static final Language EN = new Language("en");
+    // values() copies the array on every call
+    private static final Category[] CATEGORY_VALUES = Category.values();
+    private static final CategoryRef[] CATEGORIES = new CategoryRef[CATEGORY_VALUES.length];
+    private static final Page[] PAGES = new Page[Pages.MAX_PAGES];
+    private static final CategoryPage[][] CATEGORY_PAGES = new CategoryPage[CATEGORY_VALUES.length][Pages.MAX_PAGES];
+
+    static {
+        for (Category category : CATEGORY_VALUES) {
+            CATEGORIES[category.ordinal()] = new CategoryRef(category);
+            for (int i = 0; i < Pages.MAX_PAGES; i++) {
+                CATEGORY_PAGES[category.ordinal()][i] = new CategoryPage(category, i);
+            }
+        }
+        for (int i = 0; i < PAGES.length; i++) {
+            PAGES[i] = new Page(i);
+        }
+    }
+
+    private Callbacks() {
+    }
+
+    record Language(String code) {
+    }
+
+    record CategoryRef(Category category) {
+    }
+
+    record FaqRef(String faqId) {
+    }
+
+    /**
+     * Zero-based page of the search suggestions, which only the chat's
+     * session holds.
+     */
+    record Page(int number) {
+    }
+
+    /**
+     * Zero-based page of a category's questions. Carries the category, so
+     * it works whatever the session says (or if there is none).
+     */
+    record CategoryPage(Category category, int number) {
+    }
+
+    static String categoryPageData(Category category, int page) {
+        return CATEGORY_PAGE + category.name() + "_" + page;
+    }
+
+    static Language language(String data, int offset) {
+        if (data.length() - offset != 2) {
+            return null;
+        }
+        if (data.regionMatches(offset, "RU", 0, 2)) {
+            return RU;
+        }
+        return data.regionMatches(offset, "EN", 0, 2) ? EN : null;
+    }
+
+    static CategoryRef category(String data, int offset) {
+        int length = data.length() - offset;
+        for (Category category : CATEGORY_VALUES) {
+            String name = category.name();
+            if (name.length() == length && data.regionMatches(offset, name, 0, length)) {
+                return CATEGORIES[category.ordinal()];
+            }
+        }
+        return null;
+    }
+
+    static FaqRef faq(String data, int offset) {
+        int length = data.length() - offset;
+        if (length == 0 || length > MAX_FAQ_ID_LENGTH) {
+            return null;
+        }
+        for (int i = offset; i < data.length(); i++) {
+            char c = data.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '.';
+            if (!allowed) {
+                return null;
+            }
+        }
+        return new FaqRef(data.substring(offset));
+    }
+
+    static Page page(String data, int offset) {
+        int number = pageNumber(data, offset);
+        return number < 0 ? null : PAGES[number];
+    }
+
+    /**
+     * {@code <CATEGORY>_<page>}.
+     */
+    static CategoryPage categoryPage(String data, int offset) {
+        int separator = data.lastIndexOf('_');
+        if (separator < offset) {
+            return null;
+        }
+        int number = pageNumber(data, separator + 1);
+        if (number < 0) {
+            return null;
+        }
+        int length = separator - offset;
+        for (Category category : CATEGORY_VALUES) {
+            String name = category.name();
+            if (name.length() == length && data.regionMatches(offset, name, 0, length)) {
+                return CATEGORY_PAGES[category.ordinal()][number];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The page number from {@code offset} to the end, or -1.
+     */
+    private static int pageNumber(String data, int offset) {
+        int length = data.length() - offset;
+        if (length == 0 || length > 2) {
+            return -1;
+        }
+        int number = 0;
+        for (int i = offset; i < data.length(); i++) {
+            char c = data.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number < Pages.MAX_PAGES ? number : -1;
+    }
+}
@@ -1,11 +1,27 @@
 package com.education.italy.bot;
 
+import com.education.italy.bot.Callbacks.CategoryPage;
+import com.education.italy.bot.Callbacks.CategoryRef;
+import com.education.italy.bot.Callbacks.FaqRef;
+import com.education.italy.bot.Callbacks.Language;
+import com.education.italy.bot.Callbacks.Page;
+import com.education.italy.metrics.StartupMetrics;
 import com.education.italy.model.Category;
 import com.education.italy.model.FaqItem;
-import com.education.italy.repository.FaqRepository;
 import com.education.italy.service.BotService;
+import com.education.italy.service.CategoryListings;
+import com.education.italy.service.ChatSessionStore;
+import com.education.italy.service.ChatSessionStore.Screen;
+import com.education.italy.service.FaqContentSync;
+import com.education.italy.service.FaqSnapshot;
+import com.education.italy.service.SearchHit;
+import com.education.italy.service.UserService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Update;
@@ -13,12 +29,12 @@ import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMa
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
-import com.education.italy.model.User;
-import com.education.italy.repository.UserRepository;
-
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class ItalyStudentBot extends TelegramLongPollingBot {
@@ -30,13 +46,70 @@ public class ItalyStudentBot extends TelegramLongPollingBot {
     private String botToken;
 
     private final BotService botService;
-    private final FaqRepository faqRepository;
-    private final UserRepository userRepository;
-
-    public ItalyStudentBot(BotService botService, FaqRepository faqRepository, UserRepository userRepository) {
+    private final UserService userService;
+    private final ChatSessionStore sessions;
+    private final UpdateDispatcher dispatcher;
+    private final OutboundSender outboundSender;
+    private final Set<Long> adminChatIds;
+    private final UpdateTimers timers;
+    private final CallbackRouter callbacks;
+    private final int pageSize;
+    private final StartupMetrics startup;
+
+    public ItalyStudentBot(BotService botService, UserService userService, ChatSessionStore sessions,
+                           UpdateDispatcher dispatcher, OutboundSender outboundSender,
+                           @Value("${bot.outbound.threads:4}") int sendThreads,
+                           @Value("${bot.api-url:https://api.telegram.org/bot}") String apiUrl,
+                           @Value("${bot.admin-chat-ids:}") Set<Long> adminChatIds,
+                           @Value("${bot.page-size:6}") int pageSize,
+                           MeterRegistry meterRegistry, StartupMetrics startup) {
+        super(botOptions(sendThreads, apiUrl));
         this.botService = botService;
-        this.faqRepository = faqRepository;
-        this.userRepository = userRepository;
+        this.userService = userService;
+        this.sessions = sessions;
+        this.dispatcher = dispatcher;
+        this.outboundSender = outboundSender;
+        this.adminChatIds = adminChatIds;
+        this.pageSize = pageSize;
+        this.startup = startup;
+        this.timers = new UpdateTimers(meterRegistry);
+        this.callbacks = CallbackRouter.builder()
+                .prefix(Callbacks.LANG, Callbacks::language, this::onLanguage)
+                .exact(Callbacks.MENU, chatId -> sendMainMenu(chatId, languageOf(chatId)))
+                .exact(Callbacks.TOPICS, chatId -> sendTopics(chatId, languageOf(chatId)))
+                // "Ask" only invites the user to type; nothing to send
+                .exact(Callbacks.ASK, chatId -> { })
+                .prefix(Callbacks.CATEGORY, Callbacks::category, this::onCategory)
+                .prefix(Callbacks.FAQ, Callbacks::faq, this::onFaq)
+                .prefix(Callbacks.PAGE, Callbacks::page, this::onPage)
+                .prefix(Callbacks.CATEGORY_PAGE, Callbacks::categoryPage, this::onCategoryPage)
+                .build();
+        FunctionCounter.builder("bot.callbacks.rejected", callbacks, CallbackRouter::rejected)
+                .description("Callbacks with unknown or invalid data")
+                .register(meterRegistry);
+    }
+
+    private static DefaultBotOptions botOptions(int sendThreads, String apiUrl) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        // Threads used by executeAsync for concurrent HTTP sends
+        options.setMaxThreads(sendThreads);
+        options.setBaseUrl(apiUrl);
+        return options;
+    }
+
+    @PostConstruct
+    public void startOutbound() {
+        outboundSender.start(message -> {
+            try {
+                return executeAsync(message).whenComplete((sent, error) -> {
+                    if (error == null) {
+                        startup.replySent();
+                    }
+                });
+            } catch (TelegramApiException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
     }
 
     @Override
@@ -51,10 +124,23 @@ public class ItalyStudentBot extends TelegramLongPollingBot {
 
     @Override
     public void onUpdateReceived(Update update) {
-        if (update.hasMessage() && update.getMessage().hasText()) {
-            handleMessage(update);
-        } else if (update.hasCallbackQuery()) {
-            handleCallback(update);
+        // Handled on a virtual thread, in order per chat
+        long receivedAt = System.nanoTime();
+        dispatcher.dispatch(update, u -> handleUpdate(u, receivedAt));
+    }
+
+    // Package-private for UpdateHandlingBenchmark
+    void handleUpdate(Update update, long receivedAt) {
+        long start = System.nanoTime();
+        timers.queueWait.record(start - receivedAt, TimeUnit.NANOSECONDS);
+        try {
+            if (update.hasMessage() && update.getMessage().hasText()) {
+                handleMessage(update);
+            } else if (update.hasCallbackQuery()) {
+                handleCallback(update);
+            }
+        } finally {
+            timers.forUpdate(update).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
@@ -63,278 +149,227 @@ public class ItalyStudentBot extends TelegramLongPollingBot {
         String text = update.getMessage().getText();
 
         if (text.equals("/start")) {
-            registerUser(chatId);
+            userService.registerUser(chatId);
             sendLanguageSelection(chatId);
             return;
         }
 
-        String lang = getUserLanguage(chatId);
+        if (text.equals("/reload") && adminChatIds.contains(chatId)) {
+            FaqContentSync.SyncResult result = botService.reloadContent();
+            sendMessage(chatId, result == null ? "Reload failed, see the logs."
+                    : "Reloaded " + result.items().size() + " items: " + result.inserted() + " inserted, "
+                    + result.updated() + " updated, " + result.deleted() + " deleted.", false);
+            return;
+        }
+
+        String lang = languageOf(chatId);
+
+        if (answerFollowUp(chatId, text, lang)) {
+            return;
+        }
 
         // Search logic
-        List<FaqItem> results = botService.search(text, lang);
+        List<SearchHit> results = botService.search(text, lang);
         if (results.isEmpty()) {
-            sendMessage(chatId, lang.equals("ru")
-                    ? "Хм, я пока не знаю ответа на этот вопрос. 🤔 Попробуйте сформулировать иначе или посмотрите темы в меню 👇"
-                    : "Hmm, I don't know the answer yet. 🤔 Try rephrasing or check the topics in the menu 👇", true);
-        } else if (results.size() == 1) {
-            sendAnswer(chatId, results.get(0), lang);
+            sendMessage(chatId, KeyboardTemplates.forLang(lang).notFoundText(), true);
+            sessions.setScreen(chatId, Screen.NONE, null, 0);
+        } else if (botService.isConfident(results)) {
+            sendAnswer(chatId, results.get(0).item(), lang);
         } else {
-            // Multiple results, show suggestions
+            // Several plausible matches, show suggestions
             sendSuggestions(chatId, results, lang);
         }
     }
 
-    private void handleCallback(Update update) {
-        long chatId = update.getCallbackQuery().getMessage().getChatId();
-        String data = update.getCallbackQuery().getData();
-
-        if (data.startsWith("LANG_")) {
-            String lang = data.split("_")[1].toLowerCase();
-            updateUserLanguage(chatId, lang);
-            sendMainMenu(chatId, lang);
-        } else if (data.equals("MENU")) {
-            sendMainMenu(chatId, getUserLanguage(chatId));
-        } else if (data.equals("TOPICS")) {
-            sendTopics(chatId, getUserLanguage(chatId));
-        } else if (data.startsWith("CAT_")) {
-            String catName = data.split("_")[1];
-            Category cat = Category.valueOf(catName);
-            showCategoryQuestions(chatId, cat, getUserLanguage(chatId));
-        } else if (data.startsWith("FAQ_")) {
-            String id = data.split("_")[1];
-            faqRepository.findById(id)
-                    .ifPresent(item -> sendAnswer(chatId, item, getUserLanguage(chatId)));
+    /**
+     * The session's language, falling back to {@link UserService} on the
+     * first update of a chat (or after the session expired). While the
+     * database is unavailable the default is used but not kept, so the
+     * user's own language is picked up once it answers again.
+     */
+    private String languageOf(long chatId) {
+        String lang = sessions.language(chatId);
+        if (lang == null) {
+            lang = userService.findUserLanguage(chatId);
+            if (lang == null) {
+                return UserService.DEFAULT_LANGUAGE;
+            }
+            sessions.setLanguage(chatId, lang);
         }
+        return lang;
     }
 
-    private void sendLanguageSelection(long chatId) {
-        SendMessage message = new SendMessage();
-        message.setChatId(String.valueOf(chatId));
-        message.setText("Benvenuto! Please select your language / Выберите язык:");
-
-        InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
-        List<InlineKeyboardButton> row = new ArrayList<>();
-
-        var ruBtn = new InlineKeyboardButton();
-        ruBtn.setText("🇷🇺 Русский");
-        ruBtn.setCallbackData("LANG_RU");
-
-        var enBtn = new InlineKeyboardButton();
-        enBtn.setText("🇬🇧 English");
-        enBtn.setCallbackData("LANG_EN");
-
-        row.add(ruBtn);
-        row.add(enBtn);
-        rows.add(row);
-        markup.setKeyboard(rows);
-        message.setReplyMarkup(markup);
-
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
+    /**
+     * Answers "1".."n" typed after a list of suggestions from the session,
+     * without searching again. False if the text is not such a follow-up or
+     * the content has been reloaded since.
+     */
+    private boolean answerFollowUp(long chatId, String text, String lang) {
+        if (text.isEmpty() || text.length() > 2 || !Character.isDigit(text.charAt(0))
+                || !Character.isDigit(text.charAt(text.length() - 1))) {
+            return false;
         }
+        ChatSessionStore.Session session = sessions.get(chatId);
+        FaqSnapshot current = botService.snapshot();
+        if (session == null || session.screen() != Screen.SUGGESTIONS
+                || session.generation() != current.generation()) {
+            return false;
+        }
+        int choice = Integer.parseInt(text);
+        if (choice < 1 || choice > session.results().length) {
+            return false;
+        }
+        sendAnswer(chatId, current.item(session.results()[choice - 1]), lang);
+        return true;
     }
 
-    private void sendMainMenu(long chatId, String lang) {
-        SendMessage message = new SendMessage();
-        message.setChatId(String.valueOf(chatId));
-        message.setText(lang.equals("ru") ? "Главное меню:" : "Main Menu:");
-
-        InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
-
-        // Button: Topics
-        var topicsBtn = new InlineKeyboardButton();
-        topicsBtn.setText(lang.equals("ru") ? "📚 Темы" : "📚 Topics");
-        topicsBtn.setCallbackData("TOPICS");
+    private void handleCallback(Update update) {
+        long chatId = update.getCallbackQuery().getMessage().getChatId();
+        callbacks.route(chatId, update.getCallbackQuery().getData());
+    }
 
-        // Button: Ask Question (Instruction)
-        var askBtn = new InlineKeyboardButton();
-        askBtn.setText(lang.equals("ru") ? "❓ Задать вопрос" : "❓ Ask Question");
-        // For simplicity, just tells user to type
-        askBtn.setCallbackData("ASK_INSTRUCTION");
+    private void onLanguage(long chatId, Language language) {
+        userService.updateUserLanguage(chatId, language.code());
+        sessions.setLanguage(chatId, language.code());
+        sendMainMenu(chatId, language.code());
+    }
 
-        List<InlineKeyboardButton> row1 = new ArrayList<>();
-        row1.add(topicsBtn);
-        row1.add(askBtn);
-        rows.add(row1);
+    private void onCategory(long chatId, CategoryRef ref) {
+        showCategoryQuestions(chatId, ref.category(), languageOf(chatId), 0);
+    }
 
-        markup.setKeyboard(rows);
-        message.setReplyMarkup(markup);
+    private void onCategoryPage(long chatId, CategoryPage page) {
+        showCategoryQuestions(chatId, page.category(), languageOf(chatId), page.number());
+    }
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
+    /**
+     * Another page of the search suggestions, which only the session holds.
+     * Without a session, after another screen, or with suggestions from
+     * content that has since been reloaded, there is nothing to page through
+     * and the menu is shown.
+     */
+    private void onPage(long chatId, Page page) {
+        String lang = languageOf(chatId);
+        ChatSessionStore.Session session = sessions.get(chatId);
+        FaqSnapshot current = botService.snapshot();
+        if (session != null && session.screen() == Screen.SUGGESTIONS
+                && session.generation() == current.generation()) {
+            showSuggestions(chatId, current, session.results(), lang, page.number());
+            return;
         }
+        sendMainMenu(chatId, lang);
     }
 
-    private void sendTopics(long chatId, String lang) {
-        SendMessage message = new SendMessage();
-        message.setChatId(String.valueOf(chatId));
-        message.setText(lang.equals("ru") ? "Выберите тему:" : "Select a topic:");
-
-        InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
-
-        for (Category cat : Category.values()) {
-            List<InlineKeyboardButton> row = new ArrayList<>();
-            InlineKeyboardButton btn = new InlineKeyboardButton();
-            btn.setText(cat.name()); // Customize display name if needed
-            btn.setCallbackData("CAT_" + cat.name());
-            row.add(btn);
-            rows.add(row);
-        }
+    private void onFaq(long chatId, FaqRef ref) {
+        String lang = languageOf(chatId);
+        botService.findFaq(ref.faqId()).ifPresentOrElse(
+                item -> sendAnswer(chatId, item, lang),
+                // Button from content that no longer exists
+                () -> sendMainMenu(chatId, lang));
+    }
 
-        var backBtn = new InlineKeyboardButton();
-        backBtn.setText(lang.equals("ru") ? "🔙 Назад" : "🔙 Back");
-        backBtn.setCallbackData("MENU");
-        rows.add(List.of(backBtn));
+    private void sendLanguageSelection(long chatId) {
+        send(chatId, KeyboardTemplates.LANGUAGE_PROMPT, KeyboardTemplates.LANGUAGE_SELECTION);
+        sessions.setScreen(chatId, Screen.LANGUAGE, null, 0);
+    }
 
-        markup.setKeyboard(rows);
-        message.setReplyMarkup(markup);
+    private void sendMainMenu(long chatId, String lang) {
+        KeyboardTemplates.Screens screens = KeyboardTemplates.forLang(lang);
+        send(chatId, screens.mainMenuText(), screens.mainMenu());
+        sessions.setScreen(chatId, Screen.MAIN_MENU, null, 0);
+    }
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
-        }
+    private void sendTopics(long chatId, String lang) {
+        KeyboardTemplates.Screens screens = KeyboardTemplates.forLang(lang);
+        send(chatId, screens.topicsText(), screens.topics());
+        sessions.setScreen(chatId, Screen.TOPICS, null, 0);
     }
 
-    private void showCategoryQuestions(long chatId, Category category, String lang) {
-        List<FaqItem> items = faqRepository.findByCategoryAndLang(category, lang);
+    private void showCategoryQuestions(long chatId, Category category, String lang, int page) {
+        KeyboardTemplates.Screens screens = KeyboardTemplates.forLang(lang);
+        List<CategoryListings.Entry> entries = botService.categoryListing(category, lang);
 
-        if (items.isEmpty()) {
-            sendMessage(chatId, lang.equals("ru") ? "Нет вопросов в этой категории." : "No questions in this category.",
-                    false);
+        if (entries.isEmpty()) {
+            sendMessage(chatId, screens.emptyCategoryText(), false);
             return;
         }
 
-        SendMessage message = new SendMessage();
-        message.setChatId(String.valueOf(chatId));
-        message.setText(lang.equals("ru") ? "Вопросы по теме " + category.name() : "Questions on " + category.name());
-
-        InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
-
-        for (FaqItem item : items) {
-            List<InlineKeyboardButton> row = new ArrayList<>();
-            InlineKeyboardButton btn = new InlineKeyboardButton();
-            String qText = item.getQuestion();
-            if (qText != null && qText.length() > 30)
-                qText = qText.substring(0, 30) + "...";
-            btn.setText(qText);
-            btn.setCallbackData("FAQ_" + item.getId());
-            row.add(btn);
-            rows.add(row);
+        int pages = Pages.count(entries.size(), pageSize);
+        page = Pages.clamp(page, pages);
+        int from = page * pageSize;
+        int to = Math.min(entries.size(), from + pageSize);
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>(to - from + 2);
+        for (CategoryListings.Entry entry : entries.subList(from, to)) {
+            rows.add(List.of(KeyboardTemplates.button(entry.label(), Callbacks.FAQ + entry.faqId())));
         }
+        addNavigation(rows, category, page, pages);
+        rows.add(screens.backToTopicsRow());
 
-        var backBtn = new InlineKeyboardButton();
-        backBtn.setText(lang.equals("ru") ? "🔙 Назад" : "🔙 Back");
-        backBtn.setCallbackData("TOPICS");
-        rows.add(List.of(backBtn));
-
-        markup.setKeyboard(rows);
-        message.setReplyMarkup(markup);
+        send(chatId, Pages.title(screens.categoryTitles().get(category), page, pages),
+                KeyboardTemplates.markup(rows));
+        sessions.setScreen(chatId, Screen.CATEGORY, category, page);
+    }
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
+    private void sendSuggestions(long chatId, List<SearchHit> results, String lang) {
+        // Kept as ordinals so that paging and a typed "2" are served from the session
+        FaqSnapshot current = botService.snapshot();
+        int[] ordinals = new int[Math.min(results.size(), ChatSessionStore.MAX_RESULTS)];
+        int count = 0;
+        for (SearchHit hit : results) {
+            int ordinal = current.ordinalOf(hit.item().getId());
+            if (ordinal >= 0 && count < ordinals.length) {
+                ordinals[count++] = ordinal;
+            }
         }
+        int[] stored = count == ordinals.length ? ordinals : Arrays.copyOf(ordinals, count);
+        sessions.setResults(chatId, current.generation(), stored, count);
+        showSuggestions(chatId, current, stored, lang, 0);
     }
 
-    private void sendSuggestions(long chatId, List<FaqItem> results, String lang) {
-        SendMessage message = new SendMessage();
-        message.setChatId(String.valueOf(chatId));
-        message.setText(lang.equals("ru") ? "Я нашел несколько похожих тем. Взгляните:"
-                : "I found a few similar topics. Take a look:");
-
-        InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
-
-        for (FaqItem item : results) {
-            List<InlineKeyboardButton> row = new ArrayList<>();
-            InlineKeyboardButton btn = new InlineKeyboardButton();
-            String qText = item.getQuestion();
-            btn.setText(qText);
-            btn.setCallbackData("FAQ_" + item.getId());
-            row.add(btn);
-            rows.add(row);
+    private void showSuggestions(long chatId, FaqSnapshot snapshot, int[] ordinals, String lang, int page) {
+        int pages = Pages.count(ordinals.length, pageSize);
+        page = Pages.clamp(page, pages);
+        int from = page * pageSize;
+        int to = Math.min(ordinals.length, from + pageSize);
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>(to - from + 1);
+        for (int i = from; i < to; i++) {
+            FaqItem item = snapshot.item(ordinals[i]);
+            rows.add(List.of(KeyboardTemplates.button(item.getQuestion(), Callbacks.FAQ + item.getId())));
         }
+        addNavigation(rows, null, page, pages);
 
-        markup.setKeyboard(rows);
-        message.setReplyMarkup(markup);
+        send(chatId, Pages.title(KeyboardTemplates.forLang(lang).suggestionsText(), page, pages),
+                KeyboardTemplates.markup(rows));
+        sessions.setScreen(chatId, Screen.SUGGESTIONS, null, page);
+    }
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
+    private static void addNavigation(List<List<InlineKeyboardButton>> rows, Category category, int page,
+                                      int pages) {
+        List<InlineKeyboardButton> navigation = Pages.navigation(category, page, pages);
+        if (!navigation.isEmpty()) {
+            rows.add(navigation);
         }
     }
 
     private void sendAnswer(long chatId, FaqItem item, String lang) {
-        String answerText = item.getAnswer();
-        SendMessage message = new SendMessage();
-        message.setChatId(String.valueOf(chatId));
-        message.setText(answerText);
-
-        InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
-
-        var backBtn = new InlineKeyboardButton();
-        backBtn.setText(lang.equals("ru") ? "🔙 Вернуться в меню" : "🔙 Back to Menu");
-        backBtn.setCallbackData("MENU");
-        rows.add(List.of(backBtn));
-
-        markup.setKeyboard(rows);
-        message.setReplyMarkup(markup);
-
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
-        }
+        send(chatId, item.getAnswer(), KeyboardTemplates.forLang(lang).backToMenu());
+        sessions.setScreen(chatId, Screen.ANSWER, item.getCategory(), 0);
     }
 
     private void sendMessage(long chatId, String text, boolean showMenuBtn) {
+        send(chatId, text, showMenuBtn ? KeyboardTemplates.MENU_BUTTON : null);
+    }
+
+    /**
+     * Only the envelope is allocated per message; markups are usually shared templates.
+     */
+    private void send(long chatId, String text, InlineKeyboardMarkup markup) {
         SendMessage message = new SendMessage();
         message.setChatId(String.valueOf(chatId));
         message.setText(text);
-        if (showMenuBtn) {
-            InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
-            var btn = new InlineKeyboardButton();
-            btn.setText("Menu");
-            btn.setCallbackData("MENU");
-            markup.setKeyboard(List.of(List.of(btn)));
+        if (markup != null) {
             message.setReplyMarkup(markup);
         }
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private void registerUser(long chatId) {
-        if (!userRepository.existsById(chatId)) {
-            User user = new User(chatId, "ru", LocalDateTime.now());
-            userRepository.save(user);
-        }
-    }
-
-    private String getUserLanguage(long chatId) {
-        return userRepository.findById(chatId)
-                .map(User::getLanguage)
-                .orElse("ru");
-    }
-
-    private void updateUserLanguage(long chatId, String lang) {
-        userRepository.findById(chatId).ifPresent(user -> {
-            user.setLanguage(lang);
-            userRepository.save(user);
-        });
+        outboundSender.send(message);
     }
 }
@@ -0,0 +1,109 @@
+package com.education.italy.bot;
+
+import com.education.italy.model.Category;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Texts and keyboards that only depend on the language, built once at class
+ * load. Markups are shared between messages and must never be modified;
+ * their row lists are immutable.
+ */
+final class KeyboardTemplates {
+
+    static final String LANGUAGE_PROMPT = "Benvenuto! Please select your language / Выберите язык:";
+
+    static final InlineKeyboardMarkup LANGUAGE_SELECTION = markup(List.of(List.of(
+            button("🇷🇺 Русский", Callbacks.LANG + "RU"),
+            button("🇬🇧 English", Callbacks.LANG + "EN"))));
+
+    static final InlineKeyboardMarkup MENU_BUTTON = markup(List.of(List.of(button("Menu", Callbacks.MENU))));
+
+    private static final Screens RU = new Screens(
+            "Главное меню:",
+            mainMenu("📚 Темы", "❓ Задать вопрос"),
+            "Выберите тему:",
+            topics("🔙 Назад"),
+            List.of(button("🔙 Назад", Callbacks.TOPICS)),
+            markup(List.of(List.of(button("🔙 Вернуться в меню", Callbacks.MENU)))),
+            "Хм, я пока не знаю ответа на этот вопрос. 🤔 Попробуйте сформулировать иначе или посмотрите темы в меню 👇",
+            "Нет вопросов в этой категории.",
+            "Я нашел несколько похожих тем. Взгляните:",
+            categoryTitles("Вопросы по теме "));
+
+    private static final Screens EN = new Screens(
+            "Main Menu:",
+            mainMenu("📚 Topics", "❓ Ask Question"),
+            "Select a topic:",
+            topics("🔙 Back"),
+            List.of(button("🔙 Back", Callbacks.TOPICS)),
+            markup(List.of(List.of(button("🔙 Back to Menu", Callbacks.MENU)))),
+            "Hmm, I don't know the answer yet. 🤔 Try rephrasing or check the topics in the menu 👇",
+            "No questions in this category.",
+            "I found a few similar topics. Take a look:",
+            categoryTitles("Questions on "));
+
+    private KeyboardTemplates() {
+    }
+
+    static Screens forLang(String lang) {
+        return "ru".equals(lang) ? RU : EN;
+    }
+
+    /**
+     * Everything language-dependent the bot sends, for one language.
+     */
+    record Screens(String mainMenuText,
+                   InlineKeyboardMarkup mainMenu,
+                   String topicsText,
+                   InlineKeyboardMarkup topics,
+                   List<InlineKeyboardButton> backToTopicsRow,
+                   InlineKeyboardMarkup backToMenu,
+                   String notFoundText,
+                   String emptyCategoryText,
+                   String suggestionsText,
+                   Map<Category, String> categoryTitles) {
+    }
+
+    static InlineKeyboardButton button(String text, String callbackData) {
+        InlineKeyboardButton button = new InlineKeyboardButton();
+        button.setText(text);
+        button.setCallbackData(callbackData);
+        return button;
+    }
+
+    static InlineKeyboardMarkup markup(List<List<InlineKeyboardButton>> rows) {
+        InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
+        markup.setKeyboard(rows);
+        return markup;
+    }
+
+    private static InlineKeyboardMarkup mainMenu(String topicsLabel, String askLabel) {
+        // "Ask" just tells the user to type a question
+        return markup(List.of(List.of(
+                button(topicsLabel, Callbacks.TOPICS),
+                button(askLabel, Callbacks.ASK))));
+    }
+
+    private static InlineKeyboardMarkup topics(String backLabel) {
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
+        for (Category cat : Category.values()) {
+            rows.add(List.of(button(cat.name(), Callbacks.CATEGORY + cat.name())));
+        }
+        rows.add(List.of(button(backLabel, Callbacks.MENU)));
+        return markup(List.copyOf(rows));
+    }
+
+    private static Map<Category, String> categoryTitles(String prefix) {
+        Map<Category, String> titles = new EnumMap<>(Category.class);
+        for (Category cat : Category.values()) {
+            titles.put(cat, prefix + cat.name());
+        }
+        return titles;
+    }
+}
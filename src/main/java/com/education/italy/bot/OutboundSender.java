@@ -0,0 +1,399 @@
+package com.education.italy.bot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Outbound message queue shared by all send paths of the bot.
+ * <p>
+ * Handlers only enqueue; a single dispatch thread hands messages to the
+ * asynchronous Telegram transport while respecting Telegram's limits
+ * (about one message per second per chat with short bursts, and about
+ * 30 messages per second overall). A 429 reply delays the chat by the
+ * {@code retry_after} Telegram asks for; network and 5xx failures are
+ * retried with exponential backoff and jitter. A chat has at most one send
+ * in flight, and a retry pauses its chat, so the chat's later messages wait
+ * behind it and arrive in the order they were queued. Anything
+ * else, a message that runs out of attempts (429s included), or a retry
+ * that finds the queue full, is dropped and counted.
+ */
+@Component
+public class OutboundSender {
+
+    private final DelayQueue<Outgoing> queue = new DelayQueue<>();
+    private final ConcurrentHashMap<Long, TokenBucket> chatBuckets = new ConcurrentHashMap<>();
+    private final TokenBucket globalBucket;
+    private final double chatPerSecond;
+    private final int chatBurst;
+    private final int queueCapacity;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration drainTimeout;
+    private final AtomicLong sequence = new AtomicLong();
+    // Handed to the transport but not completed yet; a failure may still requeue them
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Chats with a send in flight, each with the messages that came due meanwhile, in queue order
+    private final ConcurrentHashMap<Long, ArrayDeque<Outgoing>> busyChats = new ConcurrentHashMap<>();
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    private final Timer callSuccess;
+    private final Timer callFailure;
+    private final Counter rateLimited;
+    private final Counter clientErrors;
+    private final Counter serverErrors;
+    private final Counter networkErrors;
+    private final Counter droppedCounter;
+
+    private volatile Function<SendMessage, CompletableFuture<Message>> transport;
+    private volatile boolean running = true;
+    private Thread dispatchThread;
+
+    public OutboundSender(@Value("${bot.outbound.global-per-second:30}") double globalPerSecond,
+                          @Value("${bot.outbound.chat-per-second:1}") double chatPerSecond,
+                          @Value("${bot.outbound.chat-burst:3}") int chatBurst,
+                          @Value("${bot.outbound.queue-capacity:10000}") int queueCapacity,
+                          @Value("${bot.outbound.max-attempts:4}") int maxAttempts,
+                          @Value("${bot.outbound.retry-backoff:PT0.5S}") Duration retryBackoff,
+                          @Value("${bot.outbound.drain-timeout:PT10S}") Duration drainTimeout,
+                          MeterRegistry meterRegistry) {
+        this.globalBucket = new TokenBucket(globalPerSecond, (int) Math.max(1, globalPerSecond));
+        this.chatPerSecond = chatPerSecond;
+        this.chatBurst = chatBurst;
+        this.queueCapacity = queueCapacity;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.drainTimeout = drainTimeout;
+
+        this.callSuccess = callTimer(meterRegistry, "success");
+        this.callFailure = callTimer(meterRegistry, "error");
+        this.rateLimited = errorCounter(meterRegistry, "rate_limited");
+        this.clientErrors = errorCounter(meterRegistry, "client");
+        this.serverErrors = errorCounter(meterRegistry, "server");
+        this.networkErrors = errorCounter(meterRegistry, "network");
+        this.droppedCounter = Counter.builder("bot.telegram.dropped")
+                .description("Messages given up on: queue full or out of attempts")
+                .register(meterRegistry);
+        Gauge.builder("bot.telegram.queued", queue, DelayQueue::size)
+                .description("Messages waiting for their send slot")
+                .register(meterRegistry);
+    }
+
+    private static Timer callTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("bot.telegram.send")
+                .description("Latency of one Telegram sendMessage call")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(5))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+    }
+
+    private static Counter errorCounter(MeterRegistry registry, String kind) {
+        return Counter.builder("bot.telegram.errors")
+                .description("Failed Telegram calls by cause")
+                .tag("kind", kind)
+                .register(registry);
+    }
+
+    /**
+     * Connects the sender to the Telegram client and starts dispatching.
+     */
+    public synchronized void start(Function<SendMessage, CompletableFuture<Message>> transport) {
+        this.transport = transport;
+        if (dispatchThread == null) {
+            dispatchThread = Thread.ofPlatform().daemon().name("telegram-outbound").start(this::dispatchLoop);
+        }
+    }
+
+    /**
+     * Queues a message. Returns false (and counts a drop) if the queue is full
+     * or the sender is shutting down.
+     */
+    public boolean send(SendMessage message) {
+        if (!running || queue.size() >= queueCapacity) {
+            dropped.increment();
+            droppedCounter.increment();
+            return false;
+        }
+        long chatId = Long.parseLong(message.getChatId());
+        long sendAt = chatBucket(chatId).reserve(System.nanoTime());
+        queue.put(new Outgoing(message, chatId, sendAt, 1, sequence.incrementAndGet(), System.nanoTime()));
+        return true;
+    }
+
+    public Stats stats() {
+        long count = sent.sum();
+        double avgMillis = count == 0 ? 0 : latencyNanos.sum() / 1e6 / count;
+        return new Stats(count, retried.sum(), dropped.sum(), queue.size(), avgMillis, maxLatencyNanos.get() / 1e6);
+    }
+
+    /**
+     * @param avgLatencyMillis time from enqueue until Telegram confirmed the send
+     */
+    public record Stats(long sent, long retried, long dropped, int queued, double avgLatencyMillis,
+                        double maxLatencyMillis) {
+    }
+
+    private TokenBucket chatBucket(long chatId) {
+        return chatBuckets.computeIfAbsent(chatId, id -> new TokenBucket(chatPerSecond, chatBurst));
+    }
+
+    private void dispatchLoop() {
+        long lastCleanup = System.nanoTime();
+        while (running || !queue.isEmpty() || inFlight.get() > 0) {
+            Outgoing next;
+            try {
+                next = queue.poll(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long now = System.nanoTime();
+            if (now - lastCleanup > TimeUnit.MINUTES.toNanos(1)) {
+                chatBuckets.values().removeIf(bucket -> bucket.isIdle(now));
+                lastCleanup = now;
+            }
+            if (next == null) {
+                continue;
+            }
+            TokenBucket chat = chatBuckets.get(next.chatId);
+            if (chat != null && chat.pausedUntil() - now > 0) {
+                // Queued before its chat was paused for a retry: take a new slot after the pause, which
+                // puts it behind the retry and keeps the chat's messages in seq order
+                queue.put(next.delayedTo(chat.reserve(now)));
+                continue;
+            }
+            if (!claimChat(next)) {
+                continue;
+            }
+            long allowedAt = globalBucket.reserve(now);
+            if (allowedAt > now) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(allowedAt - now);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            deliver(next);
+        }
+    }
+
+    private void deliver(Outgoing outgoing) {
+        CompletableFuture<Message> result;
+        inFlight.incrementAndGet();
+        long callStart = System.nanoTime();
+        try {
+            result = transport.apply(outgoing.message);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((message, error) -> {
+            try {
+                long callNanos = System.nanoTime() - callStart;
+                (error == null ? callSuccess : callFailure).record(callNanos, TimeUnit.NANOSECONDS);
+                if (error == null) {
+                    long latency = System.nanoTime() - outgoing.enqueuedAt;
+                    sent.increment();
+                    latencyNanos.add(latency);
+                    maxLatencyNanos.accumulateAndGet(latency, Math::max);
+                } else {
+                    onFailure(outgoing, error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                }
+            } finally {
+                // Only after a possible requeue, so the chat's next message sees the pause
+                releaseChat(outgoing.chatId);
+                // Likewise, so a draining loop cannot miss either
+                inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Marks the chat busy for {@code outgoing}, or parks it behind the send
+     * already in flight for the chat.
+     */
+    private boolean claimChat(Outgoing outgoing) {
+        boolean[] claimed = new boolean[1];
+        busyChats.compute(outgoing.chatId, (id, parked) -> {
+            if (parked == null) {
+                claimed[0] = true;
+                return new ArrayDeque<>();
+            }
+            parked.add(outgoing);
+            return parked;
+        });
+        return claimed[0];
+    }
+
+    /**
+     * Frees the chat and returns its parked messages to the queue, where
+     * their send times (and seq) keep them in order.
+     */
+    private void releaseChat(long chatId) {
+        ArrayDeque<Outgoing> parked = busyChats.remove(chatId);
+        if (parked != null) {
+            parked.forEach(queue::put);
+        }
+    }
+
+    private void onFailure(Outgoing outgoing, Throwable error) {
+        long now = System.nanoTime();
+        countError(error);
+        if (isRetryable(error) && outgoing.attempt < maxAttempts) {
+            long retryAt;
+            Integer retryAfter = retryAfterSeconds(error);
+            if (retryAfter != null) {
+                retryAt = now + TimeUnit.SECONDS.toNanos(retryAfter);
+            } else {
+                // Exponential backoff with +-50% jitter so retries do not arrive in lockstep
+                long base = retryBackoff.toNanos() << (outgoing.attempt - 1);
+                long jitter = (long) (base * (ThreadLocalRandom.current().nextDouble() - 0.5));
+                retryAt = now + base + jitter;
+            }
+            if (requeue(outgoing, retryAt)) {
+                return;
+            }
+        }
+        dropped.increment();
+        droppedCounter.increment();
+        System.err.println("Dropping message to chat " + outgoing.chatId + " after " + outgoing.attempt
+                + " attempt(s): " + error.getMessage());
+    }
+
+    /**
+     * Queues another attempt at {@code sendAt} and pauses the chat until
+     * then. False if the queue is full.
+     */
+    private boolean requeue(Outgoing outgoing, long sendAt) {
+        if (queue.size() >= queueCapacity) {
+            return false;
+        }
+        retried.increment();
+        chatBucket(outgoing.chatId).pauseUntil(sendAt);
+        queue.put(new Outgoing(outgoing.message, outgoing.chatId, sendAt, outgoing.attempt + 1,
+                outgoing.seq, outgoing.enqueuedAt));
+        return true;
+    }
+
+    /**
+     * The wait Telegram asks for with a 429 (1 s if it does not say), or
+     * null for any other error.
+     */
+    private static Integer retryAfterSeconds(Throwable error) {
+        if (error instanceof TelegramApiRequestException request && request.getErrorCode() != null
+                && request.getErrorCode() == 429) {
+            Integer retryAfter = request.getParameters() != null ? request.getParameters().getRetryAfter() : null;
+            return retryAfter != null ? retryAfter : 1;
+        }
+        return null;
+    }
+
+    private void countError(Throwable error) {
+        if (!(error instanceof TelegramApiRequestException request) || request.getErrorCode() == null) {
+            networkErrors.increment();
+        } else if (request.getErrorCode() == 429) {
+            rateLimited.increment();
+        } else if (request.getErrorCode() >= 500) {
+            serverErrors.increment();
+        } else {
+            clientErrors.increment();
+        }
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof TelegramApiRequestException request) {
+            // 4xx other than 429 (bad request, bot blocked, chat not found) will not improve
+            return request.getErrorCode() == null || request.getErrorCode() >= 500 || request.getErrorCode() == 429;
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting messages and waits for the queue to empty.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        Thread thread;
+        synchronized (this) {
+            thread = dispatchThread;
+        }
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(drainTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            System.err.println("Outbound drain timed out, " + queue.size() + " message(s) not sent.");
+            thread.interrupt();
+        }
+    }
+
+    private static final class Outgoing implements Delayed {
+
+        private final SendMessage message;
+        private final long chatId;
+        private final long sendAt;
+        private final int attempt;
+        // Tie-breaker keeping messages of a chat in the order they were queued
+        private final long seq;
+        private final long enqueuedAt;
+
+        Outgoing(SendMessage message, long chatId, long sendAt, int attempt, long seq, long enqueuedAt) {
+            this.message = message;
+            this.chatId = chatId;
+            this.sendAt = sendAt;
+            this.attempt = attempt;
+            this.seq = seq;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        Outgoing delayedTo(long later) {
+            return new Outgoing(message, chatId, later, attempt, seq, enqueuedAt);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(sendAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Outgoing o = (Outgoing) other;
+            int bySendAt = Long.compare(sendAt, o.sendAt);
+            return bySendAt != 0 ? bySendAt : Long.compare(seq, o.seq);
+        }
+    }
+}
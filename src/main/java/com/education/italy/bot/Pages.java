@@ -0,0 +1,77 @@
+package com.education.italy.bot;
+
+import com.education.italy.model.Category;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.util.List;
+
+/**
+ * Splitting button lists into pages with {@link Callbacks#CATEGORY_PAGE}
+ * navigation for categories and {@link Callbacks#PAGE} for suggestions.
+ * Only the rows of the page shown are turned into buttons, and lists longer
+ * than {@link #MAX_PAGES} pages are cut off, so neither a huge category nor
+ * a forged page number can produce a message Telegram would reject.
+ */
+final class Pages {
+
+    static final int MAX_PAGES = 50;
+
+    // [list][page]: suggestions first, then categories by ordinal
+    private static final InlineKeyboardButton[][] PREVIOUS = new InlineKeyboardButton[Category.values().length + 1][];
+    private static final InlineKeyboardButton[][] NEXT = new InlineKeyboardButton[PREVIOUS.length][];
+
+    static {
+        PREVIOUS[0] = new InlineKeyboardButton[MAX_PAGES];
+        NEXT[0] = new InlineKeyboardButton[MAX_PAGES];
+        for (int page = 0; page < MAX_PAGES; page++) {
+            PREVIOUS[0][page] = KeyboardTemplates.button("◀️", Callbacks.PAGE + (page - 1));
+            NEXT[0][page] = KeyboardTemplates.button("▶️", Callbacks.PAGE + (page + 1));
+        }
+        for (Category category : Category.values()) {
+            InlineKeyboardButton[] previous = new InlineKeyboardButton[MAX_PAGES];
+            InlineKeyboardButton[] next = new InlineKeyboardButton[MAX_PAGES];
+            for (int page = 0; page < MAX_PAGES; page++) {
+                previous[page] = KeyboardTemplates.button("◀️", Callbacks.categoryPageData(category, page - 1));
+                next[page] = KeyboardTemplates.button("▶️", Callbacks.categoryPageData(category, page + 1));
+            }
+            PREVIOUS[category.ordinal() + 1] = previous;
+            NEXT[category.ordinal() + 1] = next;
+        }
+    }
+
+    private Pages() {
+    }
+
+    static int count(int rows, int pageSize) {
+        return Math.max(1, Math.min(MAX_PAGES, (rows + pageSize - 1) / pageSize));
+    }
+
+    /**
+     * The requested page, moved into range if the list has shrunk since the
+     * button was sent.
+     */
+    static int clamp(int page, int pages) {
+        return Math.max(0, Math.min(page, pages - 1));
+    }
+
+    /**
+     * Previous/next buttons for {@code page} of a category's questions, or
+     * of the search suggestions when {@code category} is null; an empty row
+     * for a single page.
+     */
+    static List<InlineKeyboardButton> navigation(Category category, int page, int pages) {
+        if (pages <= 1) {
+            return List.of();
+        }
+        int list = category == null ? 0 : category.ordinal() + 1;
+        if (page == 0) {
+            return List.of(NEXT[list][page]);
+        }
+        return page == pages - 1 ? List.of(PREVIOUS[list][page])
+                : List.of(PREVIOUS[list][page], NEXT[list][page]);
+    }
+
+    static String title(String text, int page, int pages) {
+        return pages <= 1 ? text : text + " (" + (page + 1) + "/" + pages + ")";
+    }
+}
@@ -0,0 +1,51 @@
+package com.education.italy.bot;
+
+import org.springframework.context.SmartLifecycle;
+import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.BotSession;
+import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
+
+/**
+ * The long-polling connection to Telegram as a lifecycle bean. It connects
+ * only once the context is fully refreshed, and Spring stops it before a
+ * CRaC checkpoint and starts it again after restore, so a restored process
+ * polls over a fresh session instead of sockets from the checkpointed one.
+ */
+public class PollingSession implements SmartLifecycle {
+
+    private final ItalyStudentBot bot;
+    private BotSession session;
+
+    public PollingSession(ItalyStudentBot bot) {
+        this.bot = bot;
+    }
+
+    @Override
+    public synchronized void start() {
+        try {
+            session = new TelegramBotsApi(DefaultBotSession.class).registerBot(bot);
+        } catch (TelegramApiException e) {
+            throw new IllegalStateException("Cannot start polling Telegram: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (session != null) {
+            session.stop();
+            session = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return session != null && session.isRunning();
+    }
+
+    @Override
+    public int getPhase() {
+        // Before StartupMetrics, which treats the end of startup as "ready"
+        return DEFAULT_PHASE - 1;
+    }
+}
@@ -0,0 +1,57 @@
+package com.education.italy.bot;
+
+/**
+ * Token bucket in its "virtual scheduling" (GCRA) form: instead of counting
+ * tokens it tracks the theoretical arrival time of the next request, so a
+ * reservation is a couple of arithmetic operations and never sleeps itself.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstAllowanceNanos;
+    private long theoreticalArrival;
+    private long pausedUntil;
+
+    /**
+     * @param perSecond sustained rate
+     * @param burst     how many requests may go out back to back
+     */
+    TokenBucket(double perSecond, int burst) {
+        this.intervalNanos = (long) (1_000_000_000L / perSecond);
+        this.burstAllowanceNanos = (burst - 1) * intervalNanos;
+        this.theoreticalArrival = System.nanoTime();
+        this.pausedUntil = theoreticalArrival;
+    }
+
+    /**
+     * Reserves one slot and returns the {@link System#nanoTime()} at which
+     * it may be used (now or later).
+     */
+    synchronized long reserve(long now) {
+        long tat = Math.max(theoreticalArrival, now);
+        long allowedAt = Math.max(now, tat - burstAllowanceNanos);
+        theoreticalArrival = tat + intervalNanos;
+        return allowedAt;
+    }
+
+    /**
+     * Blocks new reservations until {@code until}, e.g. after a 429 with retry_after.
+     */
+    synchronized void pauseUntil(long until) {
+        theoreticalArrival = Math.max(theoreticalArrival, until + burstAllowanceNanos);
+        if (until - pausedUntil > 0) {
+            pausedUntil = until;
+        }
+    }
+
+    /**
+     * End of the latest pause; in the past if there is none.
+     */
+    synchronized long pausedUntil() {
+        return pausedUntil;
+    }
+
+    synchronized boolean isIdle(long now) {
+        return theoreticalArrival - now <= 0;
+    }
+}
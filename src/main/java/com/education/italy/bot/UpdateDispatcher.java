@@ -0,0 +1,154 @@
+package com.education.italy.bot;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Fans incoming updates out to virtual threads.
+ * <p>
+ * Updates of the same chat run strictly one after another, in arrival order,
+ * while different chats are handled in parallel. At most {@code queueCapacity}
+ * updates may be queued or running at once; beyond that {@link #dispatch}
+ * blocks the caller (the polling thread), which stops fetching new updates
+ * until handlers catch up.
+ */
+@Component
+public class UpdateDispatcher {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentHashMap<Long, ChatLane> lanes = new ConcurrentHashMap<>();
+    private final Semaphore capacity;
+    private final int queueCapacity;
+    private final Duration drainTimeout;
+    private volatile boolean accepting = true;
+
+    public UpdateDispatcher(@Value("${bot.dispatch.queue-capacity:1000}") int queueCapacity,
+                            @Value("${bot.dispatch.drain-timeout:PT10S}") Duration drainTimeout) {
+        this.queueCapacity = queueCapacity;
+        this.capacity = new Semaphore(queueCapacity);
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Queues an update for its chat. Returns false if the update carries no
+     * chat or the dispatcher is shutting down.
+     */
+    public boolean dispatch(Update update, Consumer<Update> handler) {
+        Long chatId = chatIdOf(update);
+        if (chatId == null || !accepting) {
+            return false;
+        }
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        Runnable task = () -> handler.accept(update);
+        boolean[] start = new boolean[1];
+        lanes.compute(chatId, (id, lane) -> {
+            if (lane == null) {
+                lane = new ChatLane();
+            }
+            lane.pending.add(task);
+            if (!lane.running) {
+                lane.running = true;
+                start[0] = true;
+            }
+            return lane;
+        });
+        if (start[0]) {
+            executor.execute(() -> drain(chatId));
+        }
+        return true;
+    }
+
+    /**
+     * Updates queued or running right now.
+     */
+    public int inFlight() {
+        return queueCapacity - capacity.availablePermits();
+    }
+
+    public int activeChats() {
+        return lanes.size();
+    }
+
+    public static Long chatIdOf(Update update) {
+        if (update.hasMessage()) {
+            return update.getMessage().getChatId();
+        }
+        if (update.hasCallbackQuery()) {
+            var callback = update.getCallbackQuery();
+            if (callback.getMessage() != null) {
+                return callback.getMessage().getChatId();
+            }
+            return callback.getFrom() != null ? callback.getFrom().getId() : null;
+        }
+        return null;
+    }
+
+    private void drain(Long chatId) {
+        while (true) {
+            Runnable[] next = new Runnable[1];
+            // Polling and retiring the lane happen under the map's per-key lock,
+            // so a concurrent dispatch either sees a running lane or creates a new one
+            lanes.compute(chatId, (id, lane) -> {
+                next[0] = lane.pending.poll();
+                if (next[0] == null) {
+                    lane.running = false;
+                    return null;
+                }
+                return lane;
+            });
+            if (next[0] == null) {
+                return;
+            }
+            try {
+                next[0].run();
+            } catch (Throwable e) {
+                // Errors too: an escaping one would leave the lane marked running and stall the chat
+                System.err.println("Failed to handle update for chat " + chatId + ": " + e);
+                e.printStackTrace();
+            } finally {
+                capacity.release();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting updates and waits for the queued ones to finish.
+     */
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        try {
+            if (capacity.tryAcquire(queueCapacity, drainTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                // Drained: hand the permits back so inFlight() reads 0 again
+                capacity.release(queueCapacity);
+            } else {
+                System.err.println("Dispatcher drain timed out with " + inFlight() + " updates in flight.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+    }
+
+    private static final class ChatLane {
+        private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+        private boolean running;
+    }
+}
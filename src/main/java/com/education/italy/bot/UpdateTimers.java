@@ -0,0 +1,75 @@
+package com.education.italy.bot;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+
+/**
+ * Handling-time histograms per kind of update, registered up front so the
+ * hot path only picks a field and records a long.
+ */
+final class UpdateTimers {
+
+    final Timer queueWait;
+    private final Timer start;
+    private final Timer message;
+    private final Timer lang;
+    private final Timer menu;
+    private final Timer topics;
+    private final Timer category;
+    private final Timer faq;
+    private final Timer otherCallback;
+    private final Timer other;
+
+    UpdateTimers(MeterRegistry registry) {
+        queueWait = histogram(registry, "bot.update.queue", "type", "any",
+                "Time from receipt until a handler picked the update up");
+        start = handling(registry, "start");
+        message = handling(registry, "message");
+        lang = handling(registry, "LANG_");
+        menu = handling(registry, "MENU");
+        topics = handling(registry, "TOPICS");
+        category = handling(registry, "CAT_");
+        faq = handling(registry, "FAQ_");
+        otherCallback = handling(registry, "callback_other");
+        other = handling(registry, "other");
+    }
+
+    Timer forUpdate(Update update) {
+        if (update.hasMessage() && update.getMessage().hasText()) {
+            return "/start".equals(update.getMessage().getText()) ? start : message;
+        }
+        if (!update.hasCallbackQuery() || update.getCallbackQuery().getData() == null) {
+            return other;
+        }
+        String data = update.getCallbackQuery().getData();
+        if (data.startsWith(Callbacks.FAQ)) {
+            return faq;
+        } else if (data.startsWith(Callbacks.CATEGORY)) {
+            return category;
+        } else if (data.equals(Callbacks.TOPICS)) {
+            return topics;
+        } else if (data.equals(Callbacks.MENU)) {
+            return menu;
+        } else if (data.startsWith(Callbacks.LANG)) {
+            return lang;
+        }
+        return otherCallback;
+    }
+
+    private static Timer handling(MeterRegistry registry, String type) {
+        return histogram(registry, "bot.update", "type", type, "Time spent handling an update, by update kind");
+    }
+
+    private static Timer histogram(MeterRegistry registry, String name, String tag, String value, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .tag(tag, value)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry);
+    }
+}
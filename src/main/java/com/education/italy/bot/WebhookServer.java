@@ -0,0 +1,133 @@
+package com.education.italy.bot;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Minimal HTTP endpoint for Telegram webhook delivery, used instead of long
+ * polling when {@code bot.mode=webhook}.
+ * <p>
+ * Each request runs on its own virtual thread, is checked against the
+ * secret token Telegram echoes in {@code X-Telegram-Bot-Api-Secret-Token},
+ * and is handed to the same consumer the polling session feeds. Telegram
+ * resends updates that were not answered with 2xx, so malformed bodies get
+ * 400, updates the sink could not take get 503 (Telegram retries them) and
+ * everything else gets 200.
+ */
+public class WebhookServer {
+
+    public static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+    // Set by a peer node that already routed the update here
+    public static final String FORWARDED_HEADER = "X-Bot-Forwarded";
+    private static final int MAX_BODY_BYTES = 1 << 20;
+
+    private final ObjectMapper objectMapper;
+    private final Sink sink;
+    private final int port;
+    private final String path;
+    private final byte[] secret;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param port   0 picks a free port, see {@link #port()}
+     * @param secret expected secret token; blank disables the check
+     */
+    public WebhookServer(ObjectMapper objectMapper, Consumer<Update> sink, int port, String path, String secret) {
+        this(objectMapper, (update, body, forwarded) -> {
+            sink.accept(update);
+            return true;
+        }, port, path, secret);
+    }
+
+    public WebhookServer(ObjectMapper objectMapper, Sink sink, int port, String path, String secret) {
+        this.objectMapper = objectMapper;
+        this.sink = sink;
+        this.port = port;
+        this.path = path;
+        this.secret = secret == null || secret.isBlank() ? null : secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        server.createContext(path, this::handle);
+        server.start();
+        System.out.println("Webhook listening on port " + port() + path);
+    }
+
+    /**
+     * The bound port, useful when started with port 0.
+     */
+    public synchronized int port() {
+        return server == null ? port : server.getAddress().getPort();
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        executor.close();
+        server = null;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (secret != null && !secretMatches(exchange.getRequestHeaders().getFirst(SECRET_HEADER))) {
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+            Update update;
+            byte[] bytes;
+            try (InputStream body = exchange.getRequestBody()) {
+                bytes = body.readNBytes(MAX_BODY_BYTES);
+                update = objectMapper.readValue(bytes, Update.class);
+            } catch (JacksonException e) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            boolean forwarded = exchange.getRequestHeaders().containsKey(FORWARDED_HEADER);
+            exchange.sendResponseHeaders(sink.accept(update, bytes, forwarded) ? 200 : 503, -1);
+        }
+    }
+
+    /**
+     * Receives parsed updates together with the raw body, so they can be
+     * passed on to another node unchanged.
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        /**
+         * @param forwarded the update came from a peer node, not from Telegram
+         * @return false if the update was not taken and should be redelivered
+         */
+        boolean accept(Update update, byte[] body, boolean forwarded);
+    }
+
+    private boolean secretMatches(String header) {
+        // Constant time, the token is a credential
+        return header != null && MessageDigest.isEqual(secret, header.getBytes(StandardCharsets.UTF_8));
+    }
+}
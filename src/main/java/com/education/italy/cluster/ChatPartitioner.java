@@ -0,0 +1,43 @@
+package com.education.italy.cluster;
+
+/**
+ * Assigns every chat to exactly one of {@code nodeCount} nodes. All nodes
+ * must be started with the same node count for the assignment to agree.
+ */
+public final class ChatPartitioner {
+
+    private final int nodeIndex;
+    private final int nodeCount;
+
+    public ChatPartitioner(int nodeIndex, int nodeCount) {
+        if (nodeCount < 1 || nodeIndex < 0 || nodeIndex >= nodeCount) {
+            throw new IllegalArgumentException("Node " + nodeIndex + " is not in a cluster of " + nodeCount);
+        }
+        this.nodeIndex = nodeIndex;
+        this.nodeCount = nodeCount;
+    }
+
+    public int owner(long chatId) {
+        return (int) Long.remainderUnsigned(mix(chatId), nodeCount);
+    }
+
+    public boolean isLocal(long chatId) {
+        return owner(chatId) == nodeIndex;
+    }
+
+    public int nodeIndex() {
+        return nodeIndex;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    // Chat ids are not uniformly distributed (groups are negative, users cluster
+    // by registration time), so spread the bits before taking the remainder
+    private static long mix(long x) {
+        x = (x ^ (x >>> 33)) * 0xff51afd7ed558ccdL;
+        x = (x ^ (x >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return x ^ (x >>> 33);
+    }
+}
@@ -0,0 +1,157 @@
+package com.education.italy.cluster;
+
+import com.education.italy.service.BotService;
+import com.education.italy.service.ChatSessionStore;
+import com.education.italy.service.DatabaseGuard;
+import com.education.italy.service.FaqContentChangedEvent;
+import com.education.italy.service.UserLanguageChangedEvent;
+import com.education.italy.service.UserService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Keeps node-local caches coherent across the cluster through Postgres
+ * LISTEN/NOTIFY, so no extra broker is needed.
+ * <p>
+ * A node that changed the FAQ table or a user's language notifies the
+ * others, which rebuild their snapshot from the table or drop the cached
+ * language. Notifications sent while a node was disconnected are lost, so
+ * after every reconnect the node refreshes everything.
+ * Payloads are {@code <node>:faq} and {@code <node>:user:<chatId>}.
+ * Notifying goes through {@link DatabaseGuard} like any other call made
+ * while handling an update, so an outage does not stall the sender.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.cluster.enabled", havingValue = "true")
+public class ClusterEvents {
+
+    private static final String CHANNEL = "bot_events";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseGuard guard;
+    private final BotService botService;
+    private final UserService userService;
+    private final ChatSessionStore sessions;
+    private final String nodeId;
+    private volatile boolean running = true;
+    private Thread listener;
+
+    public ClusterEvents(DataSource dataSource, JdbcTemplate jdbcTemplate, DatabaseGuard guard, BotService botService,
+                         UserService userService, ChatSessionStore sessions,
+                         @Value("${bot.cluster.node-index}") int nodeIndex) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.guard = guard;
+        this.botService = botService;
+        this.userService = userService;
+        this.sessions = sessions;
+        this.nodeId = String.valueOf(nodeIndex);
+    }
+
+    @PostConstruct
+    public void start() {
+        listener = Thread.ofVirtual().name("cluster-events").start(this::listenLoop);
+    }
+
+    @EventListener
+    public void onFaqChanged(FaqContentChangedEvent event) {
+        notifyPeers(nodeId + ":faq");
+    }
+
+    @EventListener
+    public void onLanguageChanged(UserLanguageChangedEvent event) {
+        notifyPeers(nodeId + ":user:" + event.chatId());
+    }
+
+    private void notifyPeers(String payload) {
+        // Peers fall back to their TTLs; a reload can be repeated with /reload
+        try {
+            if (!guard.run(() -> jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, CHANNEL,
+                    payload))) {
+                System.err.println("Cluster not notified, database unavailable (" + payload + ")");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Failed to notify cluster (" + payload + "): " + e.getMessage());
+        }
+    }
+
+    private void listenLoop() {
+        boolean first = true;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (!first) {
+                    resync();
+                }
+                first = false;
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(1000);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                System.err.println("Cluster event listener disconnected: " + e.getMessage());
+                first = false;
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        String[] parts = payload.split(":", 3);
+        if (parts.length < 2 || parts[0].equals(nodeId)) {
+            return;
+        }
+        if (parts[1].equals("faq")) {
+            botService.refreshFromDatabase();
+        } else if (parts[1].equals("user") && parts.length == 3) {
+            try {
+                long chatId = Long.parseLong(parts[2]);
+                userService.invalidateLanguage(chatId);
+                sessions.invalidate(chatId);
+            } catch (NumberFormatException e) {
+                System.err.println("Ignoring malformed cluster event: " + payload);
+            }
+        }
+    }
+
+    private void resync() {
+        botService.refreshFromDatabase();
+        userService.clearLanguageCache();
+        sessions.clear();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+}
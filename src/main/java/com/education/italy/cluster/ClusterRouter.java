@@ -0,0 +1,112 @@
+package com.education.italy.cluster;
+
+import com.education.italy.bot.UpdateDispatcher;
+import com.education.italy.bot.WebhookServer;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Webhook sink for multi-node mode. Telegram (through the load balancer)
+ * may post an update to any node; the node that owns the chat handles it
+ * and every other node passes the raw body on to the owner. Keeping a chat
+ * on one node preserves per-chat ordering and keeps its cached state local.
+ * <p>
+ * If the owner cannot be reached the update is refused, so Telegram
+ * redelivers it; the owner drops ids it has already handled.
+ */
+public class ClusterRouter implements WebhookServer.Sink {
+
+    private final ChatPartitioner partitioner;
+    private final UpdateDeduplicator deduplicator;
+    private final Forwarder forwarder;
+    private final Consumer<Update> local;
+
+    private final LongAdder handled = new LongAdder();
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder forwardFailures = new LongAdder();
+
+    public ClusterRouter(ChatPartitioner partitioner, UpdateDeduplicator deduplicator,
+                         Forwarder forwarder, Consumer<Update> local) {
+        this.partitioner = partitioner;
+        this.deduplicator = deduplicator;
+        this.forwarder = forwarder;
+        this.local = local;
+    }
+
+    @Override
+    public boolean accept(Update update, byte[] body, boolean alreadyForwarded) {
+        Long chatId = UpdateDispatcher.chatIdOf(update);
+        // A forwarded update is never forwarded again, even if the peers disagree on ownership
+        if (chatId != null && !alreadyForwarded && !partitioner.isLocal(chatId)) {
+            int owner = partitioner.owner(chatId);
+            if (forwarder.forward(owner, body)) {
+                forwarded.increment();
+                return true;
+            }
+            forwardFailures.increment();
+            return false;
+        }
+        if (update.getUpdateId() != null && !deduplicator.firstSeen(update.getUpdateId())) {
+            duplicates.increment();
+            return true;
+        }
+        handled.increment();
+        local.accept(update);
+        return true;
+    }
+
+    public Stats stats() {
+        return new Stats(handled.sum(), forwarded.sum(), duplicates.sum(), forwardFailures.sum());
+    }
+
+    public record Stats(long handled, long forwarded, long duplicates, long forwardFailures) {
+    }
+
+    /**
+     * Delivers a raw update body to another node.
+     */
+    @FunctionalInterface
+    public interface Forwarder {
+
+        boolean forward(int node, byte[] body);
+    }
+
+    /**
+     * Posts to the peers' webhook endpoints.
+     *
+     * @param nodeUrls webhook URL of every node, indexed like the partitions
+     */
+    public static Forwarder http(List<URI> nodeUrls, String secret, Duration timeout) {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(timeout).build();
+        return (node, body) -> {
+            HttpRequest.Builder request = HttpRequest.newBuilder(nodeUrls.get(node))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .header(WebhookServer.FORWARDED_HEADER, "1")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+            if (!secret.isBlank()) {
+                request.header(WebhookServer.SECRET_HEADER, secret);
+            }
+            try {
+                int status = client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+                return status / 100 == 2;
+            } catch (IOException e) {
+                System.err.println("Failed to forward update to node " + node + ": " + e.getMessage());
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.education.italy.cluster;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Remembers the most recent update ids so that a redelivered update (a
+ * Telegram retry after a slow or failed answer) is handled only once.
+ * <p>
+ * The window lives in memory on the node that handled the update, so the
+ * guarantee does not survive a restart or a move of the chat to another
+ * node: a retry arriving after either is handled again.
+ */
+public final class UpdateDeduplicator {
+
+    private final int[] ring;
+    private final Set<Integer> seen;
+    private int next;
+    private int size;
+
+    public UpdateDeduplicator(int capacity) {
+        this.ring = new int[capacity];
+        this.seen = new HashSet<>(capacity * 2);
+    }
+
+    /**
+     * True the first time an id is offered, false for repeats within the window.
+     */
+    public synchronized boolean firstSeen(int updateId) {
+        if (!seen.add(updateId)) {
+            return false;
+        }
+        if (size == ring.length) {
+            seen.remove(ring[next]);
+        } else {
+            size++;
+        }
+        ring[next] = updateId;
+        next = (next + 1) % ring.length;
+        return true;
+    }
+}
@@ -1,19 +1,73 @@
 package com.education.italy.config;
 
 import com.education.italy.bot.ItalyStudentBot;
+import com.education.italy.bot.PollingSession;
+import com.education.italy.bot.WebhookServer;
+import com.education.italy.cluster.ChatPartitioner;
+import com.education.italy.cluster.ClusterRouter;
+import com.education.italy.cluster.UpdateDeduplicator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
-import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Connects the bot to Telegram: long polling by default, or an HTTP webhook
+ * with {@code bot.mode=webhook}. Both feed {@link ItalyStudentBot#onUpdateReceived}.
+ * <p>
+ * With {@code bot.cluster.enabled=true} (webhook mode only) several nodes
+ * share the token; each chat is owned by one node and updates arriving
+ * elsewhere are forwarded to it, see {@link ClusterRouter}.
+ */
 @Configuration
 public class BotConfig {
 
     @Bean
-    public TelegramBotsApi telegramBotsApi(ItalyStudentBot italyStudentBot) throws TelegramApiException {
-        TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
-        telegramBotsApi.registerBot(italyStudentBot);
-        return telegramBotsApi;
+    @ConditionalOnProperty(name = "bot.mode", havingValue = "polling", matchIfMissing = true)
+    public PollingSession pollingSession(ItalyStudentBot italyStudentBot) {
+        return new PollingSession(italyStudentBot);
+    }
+
+    @Bean(destroyMethod = "stop")
+    @ConditionalOnProperty(name = "bot.mode", havingValue = "webhook")
+    public WebhookServer webhookServer(ItalyStudentBot italyStudentBot, ObjectMapper objectMapper,
+                                       @Value("${bot.webhook.url}") String url,
+                                       @Value("${bot.webhook.port:8081}") int port,
+                                       @Value("${bot.webhook.path:/telegram}") String path,
+                                       @Value("${bot.webhook.secret:}") String secret,
+                                       @Value("${bot.cluster.enabled:false}") boolean cluster,
+                                       @Value("${bot.cluster.node-index:0}") int nodeIndex,
+                                       @Value("${bot.cluster.nodes:}") List<URI> nodes,
+                                       @Value("${bot.cluster.forward-timeout:PT2S}") Duration forwardTimeout,
+                                       @Value("${bot.cluster.dedupe-window:10000}") int dedupeWindow)
+            throws IOException, TelegramApiException {
+        WebhookServer.Sink sink;
+        if (cluster) {
+            sink = new ClusterRouter(new ChatPartitioner(nodeIndex, nodes.size()),
+                    new UpdateDeduplicator(dedupeWindow),
+                    ClusterRouter.http(nodes, secret, forwardTimeout),
+                    italyStudentBot::onUpdateReceived);
+            System.out.println("Cluster node " + nodeIndex + " of " + nodes.size());
+        } else {
+            sink = (update, body, forwarded) -> {
+                italyStudentBot.onUpdateReceived(update);
+                return true;
+            };
+        }
+        WebhookServer server = new WebhookServer(objectMapper, sink, port, path, secret);
+        server.start();
+        italyStudentBot.execute(SetWebhook.builder()
+                .url(url + path)
+                .secretToken(secret.isBlank() ? null : secret)
+                .build());
+        return server;
     }
 }
@@ -0,0 +1,90 @@
+package com.education.italy.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the Prometheus text format on {@code bot.metrics.port}. The bot
+ * has no web stack, so this is a bare JDK HTTP server like the webhook one.
+ * It listens only while the context is running, so no socket is open at a
+ * CRaC checkpoint.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class MetricsServer implements SmartLifecycle {
+
+    private final PrometheusMeterRegistry registry;
+    private final int port;
+    private final String path;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public MetricsServer(PrometheusMeterRegistry registry,
+                         @Value("${bot.metrics.port:9464}") int port,
+                         @Value("${bot.metrics.path:/metrics}") String path) {
+        this.registry = registry;
+        this.port = port;
+        this.path = path;
+    }
+
+    @Override
+    public synchronized void start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen on metrics port " + port, e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext(path, this::scrape);
+        server.start();
+        System.out.println("Metrics available on port " + port + path);
+    }
+
+    private void scrape(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.close();
+            server = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+}
@@ -0,0 +1,110 @@
+package com.education.italy.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call into the beans of the repository package, tagged by
+ * repository, method and outcome. Timers are created on first use of a
+ * method and then looked up by {@link Method} without allocating.
+ */
+@Component
+public class RepositoryMetrics implements BeanPostProcessor {
+
+    private static final String REPOSITORY_PACKAGE = "com.education.italy.repository";
+
+    private final ObjectProvider<MeterRegistry> registry;
+
+    public RepositoryMetrics(ObjectProvider<MeterRegistry> registry) {
+        // Resolved lazily: post-processors are created before regular beans
+        this.registry = registry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        String repository = repositoryName(bean);
+        if (repository == null) {
+            return bean;
+        }
+        Interceptor interceptor = new Interceptor(repository);
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(interceptor);
+        return factory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    private static String repositoryName(Object bean) {
+        Class<?> target = AopUtils.getTargetClass(bean);
+        if (target.getPackageName().equals(REPOSITORY_PACKAGE)) {
+            return target.getSimpleName();
+        }
+        // Spring Data repositories are proxies; their interface carries the name
+        for (Class<?> type : bean.getClass().getInterfaces()) {
+            if (type.getPackageName().equals(REPOSITORY_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return null;
+    }
+
+    private final class Interceptor implements MethodInterceptor {
+
+        private final String repository;
+        private final ConcurrentHashMap<Method, Timer[]> timers = new ConcurrentHashMap<>();
+
+        Interceptor(String repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            if (method.getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            Timer[] pair = timers.computeIfAbsent(method, this::register);
+            long start = System.nanoTime();
+            try {
+                Object result = invocation.proceed();
+                pair[0].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return result;
+            } catch (Throwable e) {
+                pair[1].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        }
+
+        private Timer[] register(Method method) {
+            return new Timer[]{timer(method, "success"), timer(method, "error")};
+        }
+
+        private Timer timer(Method method, String outcome) {
+            return Timer.builder("bot.db.calls")
+                    .description("Repository method invocations")
+                    .tag("repository", repository)
+                    .tag("method", method.getName())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(100_000))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(registry.getObject());
+        }
+    }
+}
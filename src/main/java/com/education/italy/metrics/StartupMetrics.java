@@ -0,0 +1,104 @@
+package com.education.italy.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.springframework.aot.AotDetector;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * How long the bot takes to come up, to compare the plain jar with the
+ * fast-start modes: {@code bot.startup.ready} (until every lifecycle bean,
+ * including the Telegram session, has started) and
+ * {@code bot.startup.first_reply} (until the first message was sent), both
+ * tagged with the mode. Time counts from JVM start, or from the restore when
+ * the process was restored from a CRaC checkpoint.
+ */
+@Component
+public class StartupMetrics implements SmartLifecycle, Resource {
+
+    private final MeterRegistry registry;
+    private final AtomicBoolean replied = new AtomicBoolean();
+    private volatile long originMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private volatile String mode = launchMode();
+    private volatile long readyMillis;
+    private volatile long firstReplyMillis;
+    private volatile boolean running;
+
+    public StartupMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        // Held strongly by this bean; the CRaC context only keeps a weak reference
+        Core.getGlobalContext().register(this);
+    }
+
+    private static String launchMode() {
+        List<String> parts = new ArrayList<>();
+        if (AotDetector.useGeneratedArtifacts()) {
+            parts.add("aot");
+        }
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.startsWith("-XX:SharedArchiveFile") || argument.startsWith("-XX:AOTCache")) {
+                parts.add("cds");
+                break;
+            }
+        }
+        return parts.isEmpty() ? "jar" : String.join("+", parts);
+    }
+
+    /**
+     * Called for every message sent; only the first one after start or
+     * restore is recorded.
+     */
+    public void replySent() {
+        if (!replied.get() && replied.compareAndSet(false, true)) {
+            firstReplyMillis = System.currentTimeMillis() - originMillis;
+            TimeGauge.builder("bot.startup.first_reply", this, TimeUnit.MILLISECONDS, m -> m.firstReplyMillis)
+                    .description("From JVM start or CRaC restore to the first message sent")
+                    .tag("mode", mode)
+                    .register(registry);
+            System.out.println("First reply sent " + firstReplyMillis + " ms after start (" + mode + ").");
+        }
+    }
+
+    @Override
+    public void start() {
+        readyMillis = System.currentTimeMillis() - originMillis;
+        TimeGauge.builder("bot.startup.ready", this, TimeUnit.MILLISECONDS, m -> m.readyMillis)
+                .description("From JVM start or CRaC restore until the bot is connected")
+                .tag("mode", mode)
+                .register(registry);
+        System.out.println("Bot ready " + readyMillis + " ms after start (" + mode + ").");
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        // Lifecycle beans are started again after this, which records "ready"
+        originMillis = System.currentTimeMillis();
+        mode = "crac";
+        replied.set(false);
+    }
+}
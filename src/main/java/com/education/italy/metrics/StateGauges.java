@@ -0,0 +1,45 @@
+package com.education.italy.metrics;
+
+import com.education.italy.bot.UpdateDispatcher;
+import com.education.italy.service.ChatSessionStore;
+import com.education.italy.service.UserService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes counters the components already keep, sampled at scrape time.
+ */
+@Component
+public class StateGauges {
+
+    public StateGauges(MeterRegistry registry, UpdateDispatcher dispatcher, UserService userService,
+                       ChatSessionStore sessions) {
+        Gauge.builder("bot.dispatch.in_flight", dispatcher, UpdateDispatcher::inFlight)
+                .description("Updates queued or running")
+                .register(registry);
+        Gauge.builder("bot.dispatch.active_chats", dispatcher, UpdateDispatcher::activeChats)
+                .description("Chats with queued or running updates")
+                .register(registry);
+        Gauge.builder("bot.users.pending_writes", userService, UserService::pendingWrites)
+                .description("Language changes not yet flushed to the database")
+                .register(registry);
+        FunctionCounter.builder("bot.users.cache.requests", userService, s -> s.languageCacheStats().hits())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("bot.users.cache.requests", userService, s -> s.languageCacheStats().misses())
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("bot.users.cache.evictions", userService, s -> s.languageCacheStats().evictions())
+                .register(registry);
+        Gauge.builder("bot.users.cache.size", userService, s -> s.languageCacheStats().size())
+                .register(registry);
+        Gauge.builder("bot.sessions.size", sessions, s -> s.stats().size())
+                .description("Chats with conversation state")
+                .register(registry);
+        FunctionCounter.builder("bot.sessions.evictions", sessions, s -> s.stats().evictions())
+                .description("Sessions dropped as idle or to make room")
+                .register(registry);
+    }
+}
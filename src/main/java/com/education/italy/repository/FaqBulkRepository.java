@@ -0,0 +1,69 @@
+package com.education.italy.repository;
+
+import com.education.italy.model.FaqItem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Set-based writes to faq_item for content loads.
+ * <p>
+ * FaqItem has an assigned id, so {@code saveAll} makes Hibernate SELECT each
+ * row before deciding between INSERT and UPDATE. Here every row is a single
+ * {@code INSERT ... ON CONFLICT DO UPDATE}, sent in JDBC batches; with
+ * {@code reWriteBatchedInserts} the driver turns each batch into one
+ * multi-row statement.
+ */
+@Repository
+public class FaqBulkRepository {
+
+    private static final String UPSERT = """
+            INSERT INTO faq_item (id, category, lang, question, answer, keywords)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (id) DO UPDATE SET
+                category = EXCLUDED.category,
+                lang = EXCLUDED.lang,
+                question = EXCLUDED.question,
+                answer = EXCLUDED.answer,
+                keywords = EXCLUDED.keywords
+            """;
+
+    private static final String DELETE = "DELETE FROM faq_item WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public FaqBulkRepository(JdbcTemplate jdbcTemplate, @Value("${bot.faq.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return the number of batches (round trips) used
+     */
+    public int upsertAll(List<FaqItem> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.batchUpdate(UPSERT, items, batchSize, (ps, item) -> {
+            ps.setString(1, item.getId());
+            ps.setString(2, item.getCategory().name());
+            ps.setString(3, item.getLang());
+            ps.setString(4, item.getQuestion());
+            ps.setString(5, item.getAnswer());
+            ps.setString(6, item.getKeywords());
+        }).length;
+    }
+
+    /**
+     * @return the number of batches (round trips) used
+     */
+    public int deleteAll(List<FaqItem> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.batchUpdate(DELETE, items, batchSize, (ps, item) -> ps.setString(1, item.getId())).length;
+    }
+}
@@ -0,0 +1,142 @@
+package com.education.italy.repository;
+
+import com.education.italy.analytics.HourlyCount;
+import com.education.italy.analytics.SearchEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search analytics tables, outside the JPA model.
+ * <p>
+ * search_event is append-only (one row per question, BRIN-indexed by
+ * time); search_hourly and search_query_hourly hold counters per hour and
+ * language, overall and per normalized question, which each batch adds to.
+ * Top questions and miss rates are then cheap reads, e.g.
+ * {@code SELECT query, searches, misses FROM search_query_hourly
+ * WHERE hour = ? AND lang = ? ORDER BY misses DESC LIMIT 20}.
+ */
+@Repository
+@ConditionalOnExpression("${bot.analytics.buffer-size:65536} > 0")
+public class SearchAnalyticsRepository {
+
+    private static final String[] SCHEMA = {
+            """
+            CREATE TABLE IF NOT EXISTS search_event (
+                asked_at timestamptz NOT NULL,
+                lang varchar(8) NOT NULL,
+                query text NOT NULL,
+                result_ids text NOT NULL,
+                latency_us bigint NOT NULL
+            )
+            """,
+            "CREATE INDEX IF NOT EXISTS search_event_asked_at_idx ON search_event USING BRIN (asked_at)",
+            """
+            CREATE TABLE IF NOT EXISTS search_hourly (
+                hour timestamptz NOT NULL,
+                lang varchar(8) NOT NULL,
+                searches bigint NOT NULL,
+                misses bigint NOT NULL,
+                latency_us_sum bigint NOT NULL,
+                PRIMARY KEY (hour, lang)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS search_query_hourly (
+                hour timestamptz NOT NULL,
+                lang varchar(8) NOT NULL,
+                query text NOT NULL,
+                searches bigint NOT NULL,
+                misses bigint NOT NULL,
+                PRIMARY KEY (hour, lang, query)
+            )
+            """
+    };
+
+    private static final String INSERT_EVENT = """
+            INSERT INTO search_event (asked_at, lang, query, result_ids, latency_us) VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private static final String ADD_HOURLY = """
+            INSERT INTO search_hourly (hour, lang, searches, misses, latency_us_sum) VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (hour, lang) DO UPDATE SET
+                searches = search_hourly.searches + EXCLUDED.searches,
+                misses = search_hourly.misses + EXCLUDED.misses,
+                latency_us_sum = search_hourly.latency_us_sum + EXCLUDED.latency_us_sum
+            """;
+
+    private static final String ADD_QUERY_HOURLY = """
+            INSERT INTO search_query_hourly (hour, lang, query, searches, misses) VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (hour, lang, query) DO UPDATE SET
+                searches = search_query_hourly.searches + EXCLUDED.searches,
+                misses = search_query_hourly.misses + EXCLUDED.misses
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SearchAnalyticsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates the tables if missing. Called by the analytics writer before
+     * its first batch rather than at startup, so a slow or absent database
+     * does not hold up the context.
+     */
+    public void createSchema() {
+        for (String statement : SCHEMA) {
+            jdbcTemplate.execute(statement);
+        }
+    }
+
+    /**
+     * Appends the events in one JDBC batch.
+     */
+    public void insertEvents(List<SearchEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT, events, events.size(), (ps, event) -> {
+            ps.setTimestamp(1, new Timestamp(event.timestamp()));
+            ps.setString(2, event.lang());
+            ps.setString(3, event.query());
+            ps.setString(4, String.join(",", event.resultIds()));
+            ps.setLong(5, event.latencyNanos() / 1000);
+        });
+    }
+
+    /**
+     * Adds the counts to the hourly counters, one batch per table. Callers
+     * pass them in a fixed order so that concurrent writers lock rows in
+     * the same order.
+     */
+    public void addHourly(List<HourlyCount> counts) {
+        List<HourlyCount> totals = new ArrayList<>();
+        List<HourlyCount> perQuery = new ArrayList<>();
+        for (HourlyCount count : counts) {
+            (count.query() == null ? totals : perQuery).add(count);
+        }
+        if (!totals.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_HOURLY, totals, totals.size(), (ps, count) -> {
+                ps.setTimestamp(1, new Timestamp(count.hour()));
+                ps.setString(2, count.lang());
+                ps.setLong(3, count.searches());
+                ps.setLong(4, count.misses());
+                ps.setLong(5, count.latencyMicros());
+            });
+        }
+        if (!perQuery.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_QUERY_HOURLY, perQuery, perQuery.size(), (ps, count) -> {
+                ps.setTimestamp(1, new Timestamp(count.hour()));
+                ps.setString(2, count.lang());
+                ps.setString(3, count.query());
+                ps.setLong(4, count.searches());
+                ps.setLong(5, count.misses());
+            });
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.education.italy.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-statement writes to the users table. Each call is one
+ * {@code INSERT ... ON CONFLICT}, so concurrent /start taps of the same user
+ * cannot race into a duplicate-key error and no read precedes the write.
+ */
+@Repository
+public class UserWriteRepository {
+
+    // The no-op update makes RETURNING yield the stored row for existing users too
+    private static final String REGISTER = """
+            INSERT INTO users (chat_id, language, registered_at) VALUES (?, ?, ?)
+            ON CONFLICT (chat_id) DO UPDATE SET language = users.language
+            RETURNING language
+            """;
+
+    private static final String UPSERT_LANGUAGE = """
+            INSERT INTO users (chat_id, language, registered_at) VALUES (?, ?, ?)
+            ON CONFLICT (chat_id) DO UPDATE SET language = EXCLUDED.language
+            """;
+
+    private static final String INSERT_IF_ABSENT = """
+            INSERT INTO users (chat_id, language, registered_at) VALUES (?, ?, ?)
+            ON CONFLICT (chat_id) DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserWriteRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the user unless present and returns the stored language.
+     */
+    public String register(long chatId, String defaultLanguage, LocalDateTime registeredAt) {
+        return jdbcTemplate.queryForObject(REGISTER, String.class,
+                chatId, defaultLanguage, Timestamp.valueOf(registeredAt));
+    }
+
+    /**
+     * Registers many users in one JDBC batch, leaving existing rows alone.
+     */
+    public void registerAll(Collection<Long> chatIds, String defaultLanguage, LocalDateTime registeredAt) {
+        if (chatIds.isEmpty()) {
+            return;
+        }
+        Timestamp timestamp = Timestamp.valueOf(registeredAt);
+        jdbcTemplate.batchUpdate(INSERT_IF_ABSENT, chatIds, chatIds.size(), (ps, chatId) -> {
+            ps.setLong(1, chatId);
+            ps.setString(2, defaultLanguage);
+            ps.setTimestamp(3, timestamp);
+        });
+    }
+
+    /**
+     * Sets the language of many users in one JDBC batch, creating rows that
+     * do not exist yet.
+     */
+    public void upsertLanguages(Map<Long, String> languages, LocalDateTime now) {
+        if (languages.isEmpty()) {
+            return;
+        }
+        Timestamp registeredAt = Timestamp.valueOf(now);
+        List<Map.Entry<Long, String>> rows = new ArrayList<>(languages.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_LANGUAGE, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.getKey());
+            ps.setString(2, row.getValue());
+            ps.setTimestamp(3, registeredAt);
+        });
+    }
+}
@@ -1,118 +1,226 @@
 package com.education.italy.service;
 
+import com.education.italy.analytics.SearchAnalytics;
 import com.education.italy.model.Category;
 import com.education.italy.model.FaqItem;
-import com.education.italy.repository.FaqRepository;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class BotService {
 
-    private final FaqRepository faqRepository;
-    private final ObjectMapper objectMapper;
-
-    public BotService(FaqRepository faqRepository, ObjectMapper objectMapper) {
-        this.faqRepository = faqRepository;
-        this.objectMapper = objectMapper;
+    // Score thresholds for SearchHit.score (0..1), tuned on the FAQ corpus
+    public static final double ANSWER_SCORE = 0.6;
+    public static final double ANSWER_MARGIN = 0.15;
+    public static final double SUGGEST_SCORE = 0.25;
+    private static final int MAX_HITS = 10;
+
+    private final FaqContentLoader contentLoader;
+    private final FaqContentSync contentSync;
+    private final ApplicationEventPublisher events;
+    private final SearchEngine searchEngine;
+    // Absent when bot.analytics.buffer-size is 0
+    private final SearchAnalytics analytics;
+    private final QueryResultCache resultCache;
+    private final Timer searchTimer;
+    private final DistributionSummary searchResults;
+
+    // Swapped as a whole on reload; readers just take the current reference
+    private volatile FaqSnapshot snapshot = FaqSnapshot.empty();
+
+    public BotService(FaqContentLoader contentLoader, FaqContentSync contentSync, ApplicationEventPublisher events,
+                      SearchEngine searchEngine, Optional<SearchAnalytics> analytics, MeterRegistry meterRegistry,
+                      @Value("${bot.search.cache-size:10000}") int resultCacheSize) {
+        this.contentLoader = contentLoader;
+        this.contentSync = contentSync;
+        this.events = events;
+        this.searchEngine = searchEngine;
+        this.analytics = analytics.orElse(null);
+        this.resultCache = new QueryResultCache(resultCacheSize);
+        this.searchTimer = Timer.builder("bot.search")
+                .description("Ranking a free-text question against the FAQ index")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(meterRegistry);
+        this.searchResults = DistributionSummary.builder("bot.search.results")
+                .description("Hits above the suggestion threshold per search")
+                .serviceLevelObjectives(0, 1, 2, 5, MAX_HITS)
+                .register(meterRegistry);
+        FunctionCounter.builder("bot.search.cache.requests", resultCache, c -> c.stats().hits())
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("bot.search.cache.requests", resultCache, c -> c.stats().misses())
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("bot.search.cache.hit_ratio", resultCache, c -> c.stats().hitRatio())
+                .register(meterRegistry);
     }
 
+    /**
+     * Serves from the compiled snapshot file when there is one, and syncs
+     * the database from the source in the background; otherwise loads and
+     * syncs before the bot starts.
+     */
     @PostConstruct
     public void initDb() {
-        if (faqRepository.count() == 0) {
-            System.out.println("DB is empty. Loading initial data from JSON...");
-            try {
-                ClassPathResource resource = new ClassPathResource("faq.json");
-                // The JSON structure in faq.json was:
-                // [ { "id": "1", "category": "ADMISSION", "question": {"ru": "...", "en":
-                // "..."}, "answer": {...}, "keywords": [...] } ]
-                // We need to map this to the NEW FaqItem entity structure:
-                // One FaqItem per language per question.
-
-                // Let's read it as a generic list of maps first to manually map it
-                List<Map<String, Object>> rawItems = objectMapper.readValue(resource.getInputStream(),
-                        new TypeReference<>() {
-                        });
-
-                List<FaqItem> entities = new ArrayList<>();
-
-                for (Map<String, Object> raw : rawItems) {
-                    // String originalId = (String) raw.get("id"); // Not used as PK anymore,
-                    // generating UUIDs or using it as prefix
-                    String distinctId = UUID.randomUUID().toString(); // Use random for grouping or just independent
-                                                                      // items?
-                    // The user requirement said: "One record = one language".
-                    // So for 1 JSON item with RU and EN, we create 2 Entities.
-
-                    Category category = Category.valueOf(((String) raw.get("category")));
-                    Map<String, String> questions = objectMapper.convertValue(raw.get("question"),
-                            new TypeReference<>() {
-                            });
-                    Map<String, String> answers = objectMapper.convertValue(raw.get("answer"), new TypeReference<>() {
-                    });
-                    List<String> keywordsList = objectMapper.convertValue(raw.get("keywords"), new TypeReference<>() {
-                    });
-                    String keywords = keywordsList != null ? String.join(",", keywordsList) : "";
-
-                    // RU
-                    if (questions.containsKey("ru") && answers.containsKey("ru")) {
-                        entities.add(new FaqItem(
-                                UUID.randomUUID().toString(),
-                                category,
-                                "ru",
-                                questions.get("ru"),
-                                answers.get("ru"),
-                                keywords));
-                    }
-
-                    // EN
-                    if (questions.containsKey("en") && answers.containsKey("en")) {
-                        entities.add(new FaqItem(
-                                UUID.randomUUID().toString(),
-                                category,
-                                "en",
-                                questions.get("en"),
-                                answers.get("en"),
-                                keywords));
-                    }
-                }
-
-                faqRepository.saveAll(entities);
-                System.out.println("Loaded " + entities.size() + " items into DB.");
-
-            } catch (IOException e) {
-                System.err.println("Failed to load initial data: " + e.getMessage());
+        long start = System.nanoTime();
+        FaqSnapshot mapped = contentLoader.loadSnapshotFile();
+        if (mapped == null) {
+            reloadContent();
+            return;
+        }
+        snapshot = mapped;
+        System.out.printf("FAQ snapshot mapped: %d items in %d ms%n", mapped.items().size(),
+                millis(start, System.nanoTime()));
+        Thread.ofVirtual().name("faq-initial-sync").start(this::reloadContent);
+    }
+
+    /**
+     * Loads the FAQ source, writes only the changed rows to the DB and then
+     * publishes a new snapshot. Search and topic browsing keep using the
+     * previous snapshot until the swap. If the source cannot be read the
+     * current content stays in place; if the database cannot be written the
+     * source content is served from memory and synced on the next reload.
+     */
+    public synchronized FaqContentSync.SyncResult reloadContent() {
+        long start = System.nanoTime();
+        List<FaqItem> desired;
+        try {
+            desired = contentLoader.load();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to load FAQ content from " + contentLoader.getSource() + ": " + e.getMessage());
+            return null;
+        }
+        long parsed = System.nanoTime();
+        FaqContentSync.SyncResult result;
+        try {
+            result = contentSync.sync(desired);
+        } catch (DataAccessException e) {
+            System.err.println("Failed to sync FAQ content to the database, serving it from memory: " + e.getMessage());
+            if (snapshot.fingerprint() != FaqSnapshot.fingerprint(desired)) {
+                snapshot = FaqSnapshot.build(desired);
+                resultCache.clear();
             }
+            return null;
+        }
+        long synced = System.nanoTime();
+        // A snapshot mapped at startup is kept if it matches what was loaded
+        if (result.changed() || snapshot.fingerprint() != FaqSnapshot.fingerprint(result.items())) {
+            snapshot = FaqSnapshot.build(result.items());
+            resultCache.clear();
         }
+        long indexed = System.nanoTime();
+
+        System.out.printf("FAQ content loaded: %d items (%d inserted, %d updated, %d deleted) in %d ms "
+                        + "[parse %d ms, db %d ms in %d round trips, index %d ms]%n",
+                result.items().size(), result.inserted(), result.updated(), result.deleted(),
+                millis(start, indexed), millis(start, parsed), millis(parsed, synced), result.roundTrips(),
+                millis(synced, indexed));
+        if (result.changed()) {
+            events.publishEvent(new FaqContentChangedEvent(result.items().size()));
+        }
+        return result;
+    }
+
+    /**
+     * Rebuilds the snapshot from what is stored, without reading the source.
+     * Used when another node has already synced the table. Keeps the
+     * current snapshot if the database cannot be read.
+     */
+    public synchronized void refreshFromDatabase() {
+        List<FaqItem> items;
+        try {
+            items = contentSync.storedItems();
+        } catch (DataAccessException e) {
+            System.err.println("Failed to refresh FAQ content from database: " + e.getMessage());
+            return;
+        }
+        snapshot = FaqSnapshot.build(items);
+        resultCache.clear();
+        System.out.println("FAQ content refreshed from database: " + items.size() + " items.");
+    }
+
+    private static long millis(long from, long to) {
+        return (to - from) / 1_000_000;
     }
 
-    public List<FaqItem> search(String query, String lang) {
-        String lowerQuery = query.toLowerCase();
-
-        // 1. Try finding by keyword (simple fuzzy simulation via LIKE)
-        // 1. Try finding by keyword (simple fuzzy simulation via LIKE)
-        // We search if question contains query OR keywords contains query, AND lang
-        // matches
-        List<FaqItem> results = faqRepository
-                .findByLangAndQuestionContainingIgnoreCaseOrLangAndKeywordsContainingIgnoreCase(
-                        lang, lowerQuery, lang, lowerQuery);
-
-        // If results are empty, we might want to search in Category names or Keywords
-        // too.
-        if (results.isEmpty()) {
-            // Fallback: This is where more complex logic fits.
-            // For now, let's just return empty or maybe exact match?
+    /**
+     * O(1) lookup for FAQ_ callbacks, without the DB.
+     */
+    public Optional<FaqItem> findFaq(String id) {
+        return Optional.ofNullable(snapshot.byId(id));
+    }
+
+    /**
+     * The snapshot currently served, e.g. to resolve ordinals kept in a
+     * {@link ChatSessionStore} session.
+     */
+    public FaqSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public List<CategoryListings.Entry> categoryListing(Category category, String lang) {
+        return snapshot.listings().get(category, lang);
+    }
+
+    /**
+     * Ranks the FAQ items of a language against a free-text message, best
+     * first. Hits below {@link #SUGGEST_SCORE} are dropped. Repeated
+     * questions, including ones without an answer, come from the result cache.
+     * Every search is recorded in {@link SearchAnalytics} when enabled.
+     */
+    public List<SearchHit> search(String query, String lang) {
+        long start = System.nanoTime();
+        FaqSnapshot current = snapshot;
+        // Searched in its cache key form, so that questions sharing an entry get the same hits
+        String normalized = TextNormalizer.normalize(query);
+        String key = QueryResultCache.key(normalized, lang);
+        List<SearchHit> hits = resultCache.get(key, current);
+        if (hits == null) {
+            hits = searchEngine.search(current, normalized, lang, MAX_HITS);
+            int keep = 0;
+            while (keep < hits.size() && hits.get(keep).score() >= SUGGEST_SCORE) {
+                keep++;
+            }
+            hits = keep == hits.size() ? hits : hits.subList(0, keep);
+            resultCache.put(key, current, hits);
+        }
+        long elapsed = System.nanoTime() - start;
+        searchTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        searchResults.record(hits.size());
+        if (analytics != null) {
+            analytics.record(lang, key, hits, elapsed);
         }
+        return hits;
+    }
 
-        return results;
+    public QueryResultCache.Stats resultCacheStats() {
+        return resultCache.stats();
+    }
+
+    /**
+     * True when the best hit is good enough, and far enough ahead of the
+     * runner-up, to be sent as the answer without asking the user.
+     */
+    public boolean isConfident(List<SearchHit> hits) {
+        if (hits.isEmpty() || hits.get(0).score() < ANSWER_SCORE) {
+            return false;
+        }
+        return hits.size() == 1 || hits.get(0).score() - hits.get(1).score() >= ANSWER_MARGIN;
     }
 }
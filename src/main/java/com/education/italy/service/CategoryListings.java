@@ -0,0 +1,64 @@
+package com.education.italy.service;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable category -> question list per language, with the button labels
+ * already truncated. Built from the loaded corpus so browsing topics never
+ * needs the database. Questions keep the order of the given items, i.e. the
+ * order of the FAQ source.
+ */
+public final class CategoryListings {
+
+    private static final int MAX_LABEL_LENGTH = 30;
+    private static final CategoryListings EMPTY = new CategoryListings(Map.of());
+
+    private final Map<String, Map<Category, List<Entry>>> byLang;
+
+    private CategoryListings(Map<String, Map<Category, List<Entry>>> byLang) {
+        this.byLang = byLang;
+    }
+
+    public static CategoryListings empty() {
+        return EMPTY;
+    }
+
+    public static CategoryListings build(List<FaqItem> items) {
+        Map<String, Map<Category, List<Entry>>> byLang = new HashMap<>();
+        for (FaqItem item : items) {
+            byLang.computeIfAbsent(item.getLang(), l -> new EnumMap<>(Category.class))
+                    .computeIfAbsent(item.getCategory(), c -> new ArrayList<>())
+                    .add(new Entry(item.getId(), label(item.getQuestion())));
+        }
+        byLang.values().forEach(categories -> categories.replaceAll((c, entries) -> List.copyOf(entries)));
+        return new CategoryListings(Map.copyOf(byLang));
+    }
+
+    public List<Entry> get(Category category, String lang) {
+        Map<Category, List<Entry>> categories = byLang.get(lang);
+        if (categories == null) {
+            return List.of();
+        }
+        return categories.getOrDefault(category, List.of());
+    }
+
+    private static String label(String question) {
+        if (question != null && question.length() > MAX_LABEL_LENGTH) {
+            return question.substring(0, MAX_LABEL_LENGTH) + "...";
+        }
+        return question;
+    }
+
+    /**
+     * One question button: the FAQ id for the callback and its display label.
+     */
+    public record Entry(String faqId, String label) {
+    }
+}
@@ -0,0 +1,342 @@
+package com.education.italy.service;
+
+import com.education.italy.model.Category;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-chat conversation state: language, the screen last shown and the
+ * results behind it, so navigation and follow-ups ("2", "next page") need
+ * neither Postgres nor a new search.
+ * <p>
+ * Sessions are fixed 64-byte records in direct (off-heap) buffers, found
+ * through open-addressing tables of record indices, so the footprint is
+ * allocated once for {@code bot.sessions.capacity} chats and the heap does
+ * not grow with the number of active chats. Results are stored as ordinals
+ * of a {@link FaqSnapshot} together with its generation and are ignored
+ * once the snapshot has been replaced. Sessions idle for longer than
+ * {@code bot.sessions.idle-timeout} are dropped on access; when a segment is
+ * full, the least recently used of a few sampled sessions is evicted.
+ */
+@Component
+public class ChatSessionStore {
+
+    public static final int MAX_RESULTS = 10;
+
+    public enum Screen {
+        NONE, LANGUAGE, MAIN_MENU, TOPICS, CATEGORY, ANSWER, SUGGESTIONS
+    }
+
+    /**
+     * Copy of one session. {@code results} are ordinals in the snapshot of
+     * {@code generation}.
+     */
+    public record Session(String language, Screen screen, Category category, int page, int generation,
+                          int[] results) {
+    }
+
+    public record Stats(long size, long capacity, long evictions, long offHeapBytes) {
+    }
+
+    private static final int SEGMENTS = 16;
+    private static final int SAMPLE = 8;
+    private static final String[] LANGUAGES = {null, "ru", "en"};
+    private static final Screen[] SCREENS = Screen.values();
+    private static final Category[] CATEGORIES = Category.values();
+
+    // Record layout
+    private static final int RECORD = 64;
+    private static final int CHAT_ID = 0;
+    private static final int LAST_ACCESS = 8;
+    private static final int LANGUAGE = 12;
+    private static final int SCREEN = 13;
+    private static final int CATEGORY = 14;
+    private static final int RESULT_COUNT = 15;
+    private static final int GENERATION = 16;
+    private static final int PAGE = 20;
+    private static final int RESULTS = 24;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long epoch = System.nanoTime();
+    private final int idleSeconds;
+    private final LongAdder evictions = new LongAdder();
+
+    public ChatSessionStore(@Value("${bot.sessions.capacity:1000000}") int capacity,
+                            @Value("${bot.sessions.idle-timeout:PT30M}") Duration idleTimeout) {
+        int perSegment = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.idleSeconds = (int) Math.min(Integer.MAX_VALUE, idleTimeout.toSeconds());
+    }
+
+    public String language(long chatId) {
+        int hash = hash(chatId);
+        return segmentFor(hash).language(chatId, hash, now());
+    }
+
+    public void setLanguage(long chatId, String language) {
+        byte code = 0;
+        for (byte i = 1; i < LANGUAGES.length; i++) {
+            if (LANGUAGES[i].equals(language)) {
+                code = i;
+            }
+        }
+        int hash = hash(chatId);
+        segmentFor(hash).setLanguage(chatId, hash, now(), code);
+    }
+
+    /**
+     * Records the screen just sent. {@code category} may be null.
+     */
+    public void setScreen(long chatId, Screen screen, Category category, int page) {
+        int hash = hash(chatId);
+        segmentFor(hash).setScreen(chatId, hash, now(), screen, category, page);
+    }
+
+    /**
+     * Stores up to {@link #MAX_RESULTS} ordinals of {@code generation}.
+     */
+    public void setResults(long chatId, int generation, int[] ordinals, int count) {
+        int hash = hash(chatId);
+        segmentFor(hash).setResults(chatId, hash, now(), generation, ordinals, Math.min(count, MAX_RESULTS));
+    }
+
+    /**
+     * Returns a copy of the session, or null if there is none.
+     */
+    public Session get(long chatId) {
+        int hash = hash(chatId);
+        return segmentFor(hash).get(chatId, hash, now());
+    }
+
+    public void invalidate(long chatId) {
+        int hash = hash(chatId);
+        segmentFor(hash).remove(chatId, hash);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public Stats stats() {
+        long size = 0;
+        long capacity = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+            capacity += segment.capacity;
+        }
+        return new Stats(size, capacity, evictions.sum(), capacity * RECORD);
+    }
+
+    private int now() {
+        return (int) ((System.nanoTime() - epoch) / 1_000_000_000L);
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> 28) & (SEGMENTS - 1)];
+    }
+
+    private static int hash(long key) {
+        // Murmur3 finalizer, as in UserLanguageCache
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private final class Segment {
+
+        private final int capacity;
+        private final int mask;
+        private final ByteBuffer slab;
+        // Open-addressing table of record index + 1 (0 = empty slot)
+        private final int[] table;
+        private final int[] free;
+        private int freeCount;
+        private int size;
+        private int hand;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+            this.mask = tableSize - 1;
+            this.table = new int[tableSize];
+            this.slab = ByteBuffer.allocateDirect(capacity * RECORD);
+            this.free = new int[capacity];
+            clear();
+        }
+
+        synchronized String language(long chatId, int hash, int now) {
+            int base = find(chatId, hash, now);
+            return base < 0 ? null : LANGUAGES[slab.get(base + LANGUAGE)];
+        }
+
+        synchronized void setLanguage(long chatId, int hash, int now, byte code) {
+            slab.put(findOrCreate(chatId, hash, now) + LANGUAGE, code);
+        }
+
+        synchronized void setScreen(long chatId, int hash, int now, Screen screen, Category category, int page) {
+            int base = findOrCreate(chatId, hash, now);
+            slab.put(base + SCREEN, (byte) screen.ordinal());
+            slab.put(base + CATEGORY, (byte) (category == null ? 0 : category.ordinal() + 1));
+            slab.putInt(base + PAGE, page);
+        }
+
+        synchronized void setResults(long chatId, int hash, int now, int generation, int[] ordinals, int count) {
+            int base = findOrCreate(chatId, hash, now);
+            slab.putInt(base + GENERATION, generation);
+            slab.put(base + RESULT_COUNT, (byte) count);
+            for (int i = 0; i < count; i++) {
+                slab.putInt(base + RESULTS + i * 4, ordinals[i]);
+            }
+        }
+
+        synchronized Session get(long chatId, int hash, int now) {
+            int base = find(chatId, hash, now);
+            if (base < 0) {
+                return null;
+            }
+            int[] results = new int[slab.get(base + RESULT_COUNT)];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = slab.getInt(base + RESULTS + i * 4);
+            }
+            int category = slab.get(base + CATEGORY);
+            return new Session(LANGUAGES[slab.get(base + LANGUAGE)], SCREENS[slab.get(base + SCREEN)],
+                    category == 0 ? null : CATEGORIES[category - 1], slab.getInt(base + PAGE),
+                    slab.getInt(base + GENERATION), results);
+        }
+
+        synchronized void remove(long chatId, int hash) {
+            int slot = findSlot(chatId, hash);
+            if (slot >= 0) {
+                removeAt(slot);
+            }
+        }
+
+        synchronized void clear() {
+            Arrays.fill(table, 0);
+            for (int i = 0; i < capacity; i++) {
+                free[i] = capacity - 1 - i;
+            }
+            freeCount = capacity;
+            size = 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * Byte offset of the live record for {@code chatId}, touching it, or -1.
+         */
+        private int find(long chatId, int hash, int now) {
+            int slot = findSlot(chatId, hash);
+            if (slot < 0) {
+                return -1;
+            }
+            int base = (table[slot] - 1) * RECORD;
+            if (now - slab.getInt(base + LAST_ACCESS) > idleSeconds) {
+                removeAt(slot);
+                evictions.increment();
+                return -1;
+            }
+            slab.putInt(base + LAST_ACCESS, now);
+            return base;
+        }
+
+        private int findOrCreate(long chatId, int hash, int now) {
+            int base = find(chatId, hash, now);
+            if (base >= 0) {
+                return base;
+            }
+            if (freeCount == 0) {
+                evictOldestSampled();
+            }
+            int record = free[--freeCount];
+            base = record * RECORD;
+            for (int offset = 0; offset < RECORD; offset += 8) {
+                slab.putLong(base + offset, 0L);
+            }
+            slab.putLong(base + CHAT_ID, chatId);
+            slab.putInt(base + LAST_ACCESS, now);
+
+            int i = hash & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = record + 1;
+            size++;
+            return base;
+        }
+
+        /**
+         * Sampled LRU, as in Redis: walks the table from a moving hand and
+         * evicts the least recently used of the next few sessions.
+         */
+        private void evictOldestSampled() {
+            int victimSlot = -1;
+            int oldest = Integer.MAX_VALUE;
+            for (int seen = 0; seen < SAMPLE; ) {
+                hand = (hand + 1) & mask;
+                if (table[hand] == 0) {
+                    continue;
+                }
+                int lastAccess = slab.getInt((table[hand] - 1) * RECORD + LAST_ACCESS);
+                if (lastAccess < oldest) {
+                    oldest = lastAccess;
+                    victimSlot = hand;
+                }
+                seen++;
+            }
+            removeAt(victimSlot);
+            evictions.increment();
+        }
+
+        private int findSlot(long chatId, int hash) {
+            int i = hash & mask;
+            while (true) {
+                int record = table[i];
+                if (record == 0) {
+                    return -1;
+                }
+                if (slab.getLong((record - 1) * RECORD + CHAT_ID) == chatId) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        /**
+         * Frees the record and closes the gap with backward-shift deletion.
+         */
+        private void removeAt(int slot) {
+            free[freeCount++] = table[slot] - 1;
+            size--;
+            int hole = slot;
+            int i = slot;
+            while (true) {
+                i = (i + 1) & mask;
+                int record = table[i];
+                if (record == 0) {
+                    break;
+                }
+                int ideal = hash(slab.getLong((record - 1) * RECORD + CHAT_ID)) & mask;
+                if (((i - ideal) & mask) >= ((i - hole) & mask)) {
+                    table[hole] = record;
+                    hole = i;
+                }
+            }
+            table[hole] = 0;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.education.italy.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Deadline and circuit breaker for database calls made while handling
+ * updates, so a slow or unreachable Postgres costs a reply at most
+ * {@code bot.db.call-timeout} instead of blocking the chat's queue.
+ * <p>
+ * Each call runs on a virtual thread and the caller waits up to the
+ * deadline; on timeout or when the database cannot be reached it gets the
+ * fallback instead. After {@code bot.db.breaker.failures} such failures in
+ * a row the breaker opens and calls go straight to their fallbacks for
+ * {@code bot.db.breaker.open-for}; then a single trial call is let through,
+ * and its success closes the breaker and runs the recovery listeners
+ * (e.g. replaying queued writes). Errors that say nothing about the
+ * database being available, such as constraint violations, are rethrown.
+ * <p>
+ * A timed-out statement keeps running until the JDBC query timeout ends it;
+ * the caller just stops waiting for it.
+ */
+@Component
+public class DatabaseGuard {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final long callTimeoutNanos;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter timedOut;
+    private final Counter rejected;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public DatabaseGuard(@Value("${bot.db.call-timeout:PT0.5S}") Duration callTimeout,
+                         @Value("${bot.db.breaker.failures:5}") int failureThreshold,
+                         @Value("${bot.db.breaker.open-for:PT10S}") Duration openFor,
+                         MeterRegistry meterRegistry) {
+        this.callTimeoutNanos = callTimeout.toNanos();
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openFor.toNanos();
+        this.succeeded = outcome(meterRegistry, "success");
+        this.failed = outcome(meterRegistry, "failure");
+        this.timedOut = outcome(meterRegistry, "timeout");
+        this.rejected = outcome(meterRegistry, "rejected");
+        Gauge.builder("bot.db.breaker.state", this, guard -> guard.state().ordinal())
+                .description("0 closed, 1 half-open (probing), 2 open (serving from memory)")
+                .register(meterRegistry);
+    }
+
+    private static Counter outcome(MeterRegistry registry, String outcome) {
+        return Counter.builder("bot.db.guarded.calls")
+                .description("Guarded database calls by outcome; rejected = short-circuited by the open breaker")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Runs {@code call} within the deadline, or returns {@code fallback}
+     * when the call times out, the database is unavailable or the breaker
+     * is open.
+     */
+    public <T> T call(Callable<T> call, Supplier<T> fallback) {
+        if (!tryAcquire()) {
+            rejected.increment();
+            return fallback.get();
+        }
+        Future<T> future = executor.submit(call);
+        try {
+            T result = future.get(callTimeoutNanos, TimeUnit.NANOSECONDS);
+            onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            onFailure();
+            return fallback.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            releaseTrial();
+            return fallback.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (isUnavailable(cause)) {
+                failed.increment();
+                onFailure();
+                return fallback.get();
+            }
+            // The database answered, just not with what the caller wanted
+            onSuccess();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Runs a write within the deadline. Returns false if it did not run or
+     * did not finish in time, in which case the caller should keep it for
+     * a later attempt; writes must therefore be idempotent.
+     */
+    public boolean run(Runnable write) {
+        return call(() -> {
+            write.run();
+            return Boolean.TRUE;
+        }, () -> Boolean.FALSE);
+    }
+
+    /**
+     * Like {@link #run}, but on the caller's thread and without the
+     * deadline, for background writers: a batch abandoned at the deadline
+     * would still commit later, possibly over values written since. The
+     * breaker still applies, and the JDBC query timeout bounds the wait.
+     */
+    public boolean runToCompletion(Runnable write) {
+        if (!tryAcquire()) {
+            rejected.increment();
+            return false;
+        }
+        try {
+            write.run();
+        } catch (RuntimeException e) {
+            if (isUnavailable(e)) {
+                failed.increment();
+                onFailure();
+                return false;
+            }
+            onSuccess();
+            throw e;
+        } catch (Error e) {
+            releaseTrial();
+            throw e;
+        }
+        onSuccess();
+        return true;
+    }
+
+    /**
+     * Called, on a separate thread, each time the breaker closes again.
+     */
+    public void onRecovery(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    public synchronized State state() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    private void onSuccess() {
+        succeeded.increment();
+        boolean recovered;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            recovered = state != State.CLOSED;
+            state = State.CLOSED;
+            trialInFlight = false;
+        }
+        if (recovered) {
+            System.out.println("Database reachable again, leaving degraded mode.");
+            for (Runnable listener : recoveryListeners) {
+                executor.execute(listener);
+            }
+        }
+    }
+
+    private void onFailure() {
+        boolean opened = false;
+        int failures;
+        synchronized (this) {
+            failures = ++consecutiveFailures;
+            trialInFlight = false;
+            if (state == State.HALF_OPEN || failures >= failureThreshold) {
+                opened = state == State.CLOSED;
+                state = State.OPEN;
+                openedAt = System.nanoTime();
+            }
+        }
+        if (opened) {
+            System.err.println("Database slow or unreachable (" + failures + " failed calls), serving from memory.");
+        }
+    }
+
+    private synchronized void releaseTrial() {
+        trialInFlight = false;
+    }
+
+    static boolean isUnavailable(Throwable e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof CannotCreateTransactionException
+                || e instanceof SQLTransientException
+                || e instanceof SQLRecoverableException;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
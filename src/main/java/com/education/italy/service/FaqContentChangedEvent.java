@@ -0,0 +1,7 @@
+package com.education.italy.service;
+
+/**
+ * Published after a reload wrote changes to the faq_item table.
+ */
+public record FaqContentChangedEvent(int items) {
+}
@@ -0,0 +1,105 @@
+package com.education.italy.service;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the FAQ source file ({@code bot.faq.source}, faq.json on the
+ * classpath by default) into entities.
+ * <p>
+ * The JSON holds one entry per question with all languages:
+ * [ { "id": "1", "category": "ADMISSION", "question": {"ru": "...", "en": "..."},
+ * "answer": {...}, "keywords": [...] } ]
+ * and becomes one FaqItem per language, with an id derived from the source
+ * id and the language (see {@link FaqIds}).
+ * <p>
+ * With {@code bot.faq.snapshot} pointing at a file compiled by
+ * {@link FaqSnapshotFile}, startup can serve from that file before the
+ * source is read at all.
+ */
+@Component
+public class FaqContentLoader {
+
+    private final ObjectMapper objectMapper;
+    private final Resource source;
+    private final String snapshotFile;
+
+    public FaqContentLoader(ObjectMapper objectMapper,
+                            @Value("${bot.faq.source:classpath:faq.json}") Resource source,
+                            @Value("${bot.faq.snapshot:}") String snapshotFile) {
+        this.objectMapper = objectMapper;
+        this.source = source;
+        this.snapshotFile = snapshotFile;
+    }
+
+    public Resource getSource() {
+        return source;
+    }
+
+    /**
+     * Maps the compiled snapshot, or returns null if none is configured or
+     * it cannot be read.
+     */
+    public FaqSnapshot loadSnapshotFile() {
+        if (snapshotFile.isBlank()) {
+            return null;
+        }
+        try {
+            return FaqSnapshotFile.map(Path.of(snapshotFile));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Cannot use FAQ snapshot " + snapshotFile + ", loading " + source + " instead: "
+                    + e.getMessage());
+            return null;
+        }
+    }
+
+    public List<FaqItem> load() throws IOException {
+        List<Map<String, Object>> rawItems;
+        try (InputStream in = source.getInputStream()) {
+            rawItems = objectMapper.readValue(in, new TypeReference<>() {
+            });
+        }
+
+        List<FaqItem> entities = new ArrayList<>();
+        for (Map<String, Object> raw : rawItems) {
+            Object sourceId = raw.get("id");
+            if (sourceId == null) {
+                throw new IOException("FAQ entry without an id in " + source + ": " + raw.get("question"));
+            }
+            Category category = Category.valueOf(((String) raw.get("category")));
+            Map<String, String> questions = objectMapper.convertValue(raw.get("question"), new TypeReference<>() {
+            });
+            Map<String, String> answers = objectMapper.convertValue(raw.get("answer"), new TypeReference<>() {
+            });
+            List<String> keywordsList = objectMapper.convertValue(raw.get("keywords"), new TypeReference<>() {
+            });
+            String keywords = keywordsList != null ? String.join(",", keywordsList) : "";
+
+            // One record = one language
+            for (String lang : List.of("ru", "en")) {
+                if (questions.containsKey(lang) && answers.containsKey(lang)) {
+                    entities.add(new FaqItem(
+                            FaqIds.of(String.valueOf(sourceId), lang),
+                            category,
+                            lang,
+                            questions.get(lang),
+                            answers.get(lang),
+                            keywords));
+                }
+            }
+        }
+        return entities;
+    }
+}
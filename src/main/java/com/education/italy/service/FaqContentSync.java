@@ -0,0 +1,100 @@
+package com.education.italy.service;
+
+import com.education.italy.model.FaqItem;
+import com.education.italy.repository.FaqBulkRepository;
+import com.education.italy.repository.FaqRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Brings the faq_item table in line with a freshly loaded corpus, touching
+ * only rows that actually changed.
+ */
+@Service
+public class FaqContentSync {
+
+    private final FaqRepository faqRepository;
+    private final FaqBulkRepository bulkRepository;
+
+    public FaqContentSync(FaqRepository faqRepository, FaqBulkRepository bulkRepository) {
+        this.faqRepository = faqRepository;
+        this.bulkRepository = bulkRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public List<FaqItem> storedItems() {
+        return faqRepository.findAll();
+    }
+
+    /**
+     * Diffs {@code desired} against the stored rows by id and applies the
+     * difference in one transaction.
+     * <p>
+     * Rows from before stable ids (random UUIDs) never match a derived id, so
+     * the first sync replaces them: the old rows are deleted and the same
+     * content is inserted under its stable id.
+     *
+     * @return the counts and the full corpus as now stored
+     */
+    @Transactional
+    public SyncResult sync(List<FaqItem> desired) {
+        Map<String, FaqItem> stored = new HashMap<>();
+        int legacy = 0;
+        for (FaqItem item : faqRepository.findAll()) {
+            stored.put(item.getId(), item);
+            if (!FaqIds.isDerived(item.getId())) {
+                legacy++;
+            }
+        }
+        if (legacy > 0) {
+            System.out.println("Migrating " + legacy + " FAQ rows to stable ids.");
+        }
+
+        List<FaqItem> result = new ArrayList<>(desired.size());
+        List<FaqItem> inserts = new ArrayList<>();
+        List<FaqItem> updates = new ArrayList<>();
+        for (FaqItem item : desired) {
+            FaqItem existing = stored.remove(item.getId());
+            if (existing == null) {
+                inserts.add(item);
+                result.add(item);
+            } else if (sameContent(existing, item)) {
+                result.add(existing);
+            } else {
+                updates.add(item);
+                result.add(item);
+            }
+        }
+        List<FaqItem> deletes = new ArrayList<>(stored.values());
+
+        List<FaqItem> upserts = new ArrayList<>(inserts);
+        upserts.addAll(updates);
+        // One SELECT for the diff, then a handful of batches regardless of corpus size
+        int batches = 1 + bulkRepository.upsertAll(upserts) + bulkRepository.deleteAll(deletes);
+        return new SyncResult(inserts.size(), updates.size(), deletes.size(), batches, result);
+    }
+
+    private static boolean sameContent(FaqItem a, FaqItem b) {
+        return a.getCategory() == b.getCategory()
+                && Objects.equals(a.getLang(), b.getLang())
+                && Objects.equals(a.getQuestion(), b.getQuestion())
+                && Objects.equals(a.getAnswer(), b.getAnswer())
+                && Objects.equals(a.getKeywords(), b.getKeywords());
+    }
+
+    /**
+     * @param roundTrips DB statements or batches the sync needed, including the read
+     */
+    public record SyncResult(int inserted, int updated, int deleted, int roundTrips, List<FaqItem> items) {
+
+        public boolean changed() {
+            return inserted + updated + deleted > 0;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.education.italy.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+
+/**
+ * Reloads FAQ content when the source file changes on disk. Only active with
+ * {@code bot.faq.watch=true} and a file-system source (for example
+ * {@code bot.faq.source=file:/data/faq.json}); editors often write a file in
+ * several steps, so changes are debounced before reloading.
+ */
+@Component
+public class FaqContentWatcher {
+
+    private final BotService botService;
+    private final Resource source;
+    private final boolean enabled;
+    private final Duration debounce;
+    private WatchService watchService;
+
+    public FaqContentWatcher(BotService botService, FaqContentLoader contentLoader,
+                             @Value("${bot.faq.watch:false}") boolean enabled,
+                             @Value("${bot.faq.watch-debounce:PT0.5S}") Duration debounce) {
+        this.botService = botService;
+        this.source = contentLoader.getSource();
+        this.enabled = enabled;
+        this.debounce = debounce;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (!source.isFile()) {
+            System.err.println("FAQ watch requested, but " + source + " is not a file; hot reload disabled.");
+            return;
+        }
+        Path file = source.getFile().toPath().toAbsolutePath();
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        Thread.ofVirtual().name("faq-watcher").start(() -> watch(file));
+        System.out.println("Watching " + file + " for FAQ changes.");
+    }
+
+    private void watch(Path file) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean touched = containsFile(key, file);
+                key.reset();
+                if (!touched) {
+                    continue;
+                }
+                // Swallow the burst of events a single save produces
+                Thread.sleep(debounce.toMillis());
+                WatchKey more;
+                while ((more = watchService.poll()) != null) {
+                    more.pollEvents();
+                    more.reset();
+                }
+                botService.reloadContent();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private static boolean containsFile(WatchKey key, Path file) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (file.getFileName().equals(event.context())) {
+                touched = true;
+            }
+        }
+        return touched;
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.education.italy.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * Stable FaqItem ids derived from the source JSON id and the language, e.g.
+ * "en-12". They survive reseeding and reloads, so buttons already sent stay
+ * valid, and they keep "FAQ_" callback data far below Telegram's 64-byte
+ * limit.
+ */
+public final class FaqIds {
+
+    // Plain source ids are used as-is; '_' is excluded because it separates callback parts
+    private static final Pattern PLAIN = Pattern.compile("[A-Za-z0-9.-]{1,24}");
+    private static final int HASH_CHARS = 12;
+
+    private FaqIds() {
+    }
+
+    public static String of(String sourceId, String lang) {
+        if (PLAIN.matcher(sourceId).matches()) {
+            return lang + "-" + sourceId;
+        }
+        // Long or unusual source ids: 72 bits of SHA-256, base64url
+        return lang + "-h" + hash(sourceId);
+    }
+
+    public static boolean isDerived(String id) {
+        int dash = id.indexOf('-');
+        return dash > 0 && dash <= 3 && PLAIN.matcher(id.substring(dash + 1)).matches();
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, HASH_CHARS)
+                    .replace('_', '.');
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,503 @@
+package com.education.italy.service;
+
+import com.education.italy.model.FaqItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable in-memory index over the FAQ corpus, one per language.
+ * <p>
+ * Two structures live side by side:
+ * <ul>
+ * <li>character trigram postings over the folded question and keywords, used
+ * for exact substring lookups (the old "ContainingIgnoreCase" semantics);</li>
+ * <li>a word-level term dictionary with frequencies, used to rank candidates
+ * with BM25 term weights. Query words that are not in the dictionary fall
+ * back to prefix and bounded edit-distance matches, so "stipend" or
+ * "scholarhsip" still find the right item.</li>
+ * </ul>
+ */
+public final class FaqIndex {
+
+    private static final FaqIndex EMPTY = new FaqIndex(Map.of());
+
+    // BM25 parameters (usual defaults)
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // How much a non-exact term match is worth compared with an exact one
+    private static final double PREFIX_WEIGHT = 0.8;
+    private static final double ONE_EDIT_WEIGHT = 0.7;
+    private static final double TWO_EDITS_WEIGHT = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 32;
+
+    // Whole query found verbatim in a question or keyword list
+    private static final double SUBSTRING_SCORE = 0.75;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "the", "is", "are", "do", "does", "what", "how", "i", "to", "of", "for", "in", "on",
+            "and", "or", "can", "my", "me", "it", "be", "with",
+            "что", "как", "где", "это", "такое", "ли", "и", "в", "во", "на", "для", "по", "о", "об", "мне",
+            "я", "не", "с", "у", "к", "из", "а", "какие", "какой");
+
+    private final Map<String, LangIndex> byLang;
+
+    private FaqIndex(Map<String, LangIndex> byLang) {
+        this.byLang = byLang;
+    }
+
+    public static FaqIndex empty() {
+        return EMPTY;
+    }
+
+    public static FaqIndex build(Collection<FaqItem> items) {
+        Map<String, List<FaqItem>> grouped = new HashMap<>();
+        for (FaqItem item : items) {
+            grouped.computeIfAbsent(item.getLang(), l -> new ArrayList<>()).add(item);
+        }
+        Map<String, LangData> byLang = new HashMap<>();
+        grouped.forEach((lang, langItems) -> byLang.put(lang, LangData.of(langItems)));
+        return of(byLang);
+    }
+
+    /**
+     * An index over data that was computed earlier, e.g. read back from a
+     * {@link FaqSnapshotFile}.
+     */
+    static FaqIndex of(Map<String, LangData> data) {
+        Map<String, LangIndex> byLang = new HashMap<>();
+        data.forEach((lang, langData) -> byLang.put(lang, new LangIndex(langData)));
+        return new FaqIndex(Map.copyOf(byLang));
+    }
+
+    /**
+     * What the index was built from, per language.
+     */
+    Map<String, LangData> data() {
+        Map<String, LangData> data = new HashMap<>();
+        byLang.forEach((lang, index) -> data.put(lang, index.data));
+        return data;
+    }
+
+    public List<FaqItem> findContaining(String query, String lang) {
+        LangIndex index = byLang.get(lang);
+        if (index == null || query == null) {
+            return List.of();
+        }
+        List<FaqItem> results = new ArrayList<>();
+        for (int doc : index.findContaining(TextNormalizer.fold(query))) {
+            results.add(index.items[doc]);
+        }
+        return results;
+    }
+
+    /**
+     * Ranks the items of one language against a free-text query and returns
+     * at most {@code limit} hits, best first.
+     */
+    public List<SearchHit> rank(String query, String lang, int limit) {
+        LangIndex index = byLang.get(lang);
+        if (index == null || query == null || limit <= 0) {
+            return List.of();
+        }
+        return index.rank(query, limit);
+    }
+
+    public int size(String lang) {
+        LangIndex index = byLang.get(lang);
+        return index == null ? 0 : index.items.length;
+    }
+
+    static long trigram(CharSequence s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    static List<String> queryTokens(String query) {
+        Set<String> distinct = new LinkedHashSet<>(TextNormalizer.tokens(query));
+        List<String> meaningful = new ArrayList<>(distinct.size());
+        for (String token : distinct) {
+            if (!STOP_WORDS.contains(token)) {
+                meaningful.add(token);
+            }
+        }
+        // A query made only of stop words ("what is it") is still worth matching literally
+        return meaningful.isEmpty() ? new ArrayList<>(distinct) : meaningful;
+    }
+
+    static int maxEdits(String token) {
+        if (token.length() < 4) {
+            return 0;
+        }
+        return token.length() < 8 ? 1 : 2;
+    }
+
+    /**
+     * Damerau-Levenshtein (optimal string alignment) distance, giving up as
+     * soon as it exceeds {@code max}. Returns {@code max + 1} in that case.
+     * The three scratch rows must be longer than {@code b}.
+     */
+    static int boundedDistance(String a, String b, int max, int[][] rows) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] prevPrev = rows[0];
+        int[] prev = rows[1];
+        int[] cur = rows[2];
+        for (int j = 0; j <= b.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, prevPrev[j - 2] + 1);
+                }
+                cur[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] tmp = prevPrev;
+            prevPrev = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        return Math.min(prev[b.length()], max + 1);
+    }
+
+    /**
+     * The part of a language index that takes tokenizing the corpus to
+     * compute; everything else is derived from it when the index is created.
+     * Documents are numbered in id order; postings list documents ascending.
+     *
+     * @param questions folded question per document
+     * @param keywords  folded keywords per document
+     * @param docLengths words per document
+     * @param terms     sorted term dictionary
+     * @param termDocs  documents of each term
+     * @param termFreqs frequency of the term in each of those documents
+     * @param grams     character trigrams, see {@link #trigram}
+     * @param gramDocs  documents containing each trigram
+     */
+    record LangData(FaqItem[] items, String[] questions, String[] keywords, int[] docLengths,
+                    String[] terms, int[][] termDocs, int[][] termFreqs, long[] grams, int[][] gramDocs) {
+
+        static LangData of(List<FaqItem> source) {
+            // Stable order, so results do not depend on how the rows came back from the DB
+            List<FaqItem> sorted = new ArrayList<>(source);
+            sorted.sort(Comparator.comparing(FaqItem::getId));
+            FaqItem[] items = sorted.toArray(new FaqItem[0]);
+            String[] questions = new String[items.length];
+            String[] keywords = new String[items.length];
+            int[] docLengths = new int[items.length];
+
+            Map<Long, List<Integer>> postings = new HashMap<>();
+            TreeMap<String, Map<Integer, Integer>> dictionary = new TreeMap<>();
+            for (int doc = 0; doc < items.length; doc++) {
+                questions[doc] = TextNormalizer.fold(items[doc].getQuestion());
+                keywords[doc] = TextNormalizer.fold(items[doc].getKeywords());
+
+                Set<Long> seen = new LinkedHashSet<>();
+                collectTrigrams(questions[doc], seen);
+                collectTrigrams(keywords[doc], seen);
+                for (Long gram : seen) {
+                    postings.computeIfAbsent(gram, g -> new ArrayList<>()).add(doc);
+                }
+
+                List<String> words = new ArrayList<>(TextNormalizer.tokens(questions[doc]));
+                words.addAll(TextNormalizer.tokens(keywords[doc]));
+                docLengths[doc] = words.size();
+                for (String word : words) {
+                    dictionary.computeIfAbsent(word, w -> new LinkedHashMap<>()).merge(doc, 1, Integer::sum);
+                }
+            }
+
+            long[] grams = new long[postings.size()];
+            int[][] gramDocs = new int[postings.size()][];
+            int g = 0;
+            for (Map.Entry<Long, List<Integer>> entry : postings.entrySet()) {
+                grams[g] = entry.getKey();
+                gramDocs[g++] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            int termCount = dictionary.size();
+            String[] terms = new String[termCount];
+            int[][] termDocs = new int[termCount][];
+            int[][] termFreqs = new int[termCount][];
+            int id = 0;
+            for (Map.Entry<String, Map<Integer, Integer>> entry : dictionary.entrySet()) {
+                terms[id] = entry.getKey();
+                termDocs[id] = entry.getValue().keySet().stream().mapToInt(Integer::intValue).toArray();
+                termFreqs[id] = entry.getValue().values().stream().mapToInt(Integer::intValue).toArray();
+                id++;
+            }
+            return new LangData(items, questions, keywords, docLengths, terms, termDocs, termFreqs, grams, gramDocs);
+        }
+
+        private static void collectTrigrams(String text, Set<Long> out) {
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                out.add(trigram(text, i));
+            }
+        }
+    }
+
+    private static final class LangIndex {
+
+        private static final int[] NO_DOCS = new int[0];
+
+        private final LangData data;
+        private final FaqItem[] items;
+        private final String[] questions;
+        private final String[] keywords;
+        private final Map<Long, int[]> trigrams;
+
+        // Term dictionary, sorted so prefix lookups are a binary search
+        private final String[] terms;
+        private final Map<String, Integer> termIds;
+        private final int[][] termDocs;
+        private final int[][] termFreqs;
+        private final double[] termIdf;
+        private final int[][] termsByLength;
+        private final int[] docLengths;
+        private final double avgDocLength;
+        private final double unknownTermIdf;
+
+        LangIndex(LangData data) {
+            this.data = data;
+            this.items = data.items();
+            this.questions = data.questions();
+            this.keywords = data.keywords();
+            this.docLengths = data.docLengths();
+
+            Map<Long, int[]> compact = new HashMap<>(data.grams().length * 2);
+            for (int g = 0; g < data.grams().length; g++) {
+                compact.put(data.grams()[g], data.gramDocs()[g]);
+            }
+            this.trigrams = compact;
+
+            this.terms = data.terms();
+            this.termDocs = data.termDocs();
+            this.termFreqs = data.termFreqs();
+            this.termIds = new HashMap<>(terms.length * 2);
+            this.termIdf = new double[terms.length];
+            for (int id = 0; id < terms.length; id++) {
+                termIds.put(terms[id], id);
+                termIdf[id] = idf(termDocs[id].length);
+            }
+            this.termsByLength = groupByLength(terms);
+            long totalLength = 0;
+            for (int length : docLengths) {
+                totalLength += length;
+            }
+            this.avgDocLength = items.length == 0 ? 1 : Math.max(1.0, (double) totalLength / items.length);
+            this.unknownTermIdf = idf(1);
+        }
+
+        private static int[][] groupByLength(String[] terms) {
+            int longest = 0;
+            for (String term : terms) {
+                longest = Math.max(longest, term.length());
+            }
+            int[] counts = new int[longest + 1];
+            for (String term : terms) {
+                counts[term.length()]++;
+            }
+            int[][] groups = new int[longest + 1][];
+            for (int len = 0; len <= longest; len++) {
+                groups[len] = new int[counts[len]];
+                counts[len] = 0;
+            }
+            for (int t = 0; t < terms.length; t++) {
+                int len = terms[t].length();
+                groups[len][counts[len]++] = t;
+            }
+            return groups;
+        }
+
+        private double idf(int docFreq) {
+            return Math.log(1 + (items.length - docFreq + 0.5) / (docFreq + 0.5));
+        }
+
+        int[] findContaining(String query) {
+            if (query.isEmpty()) {
+                return NO_DOCS;
+            }
+            if (query.length() < 3) {
+                // Too short for trigrams; the corpus per language is small enough to scan
+                int[] results = new int[items.length];
+                int n = 0;
+                for (int doc = 0; doc < items.length; doc++) {
+                    if (matches(doc, query)) {
+                        results[n++] = doc;
+                    }
+                }
+                return Arrays.copyOf(results, n);
+            }
+
+            int[] candidates = null;
+            for (int i = 0; i + 3 <= query.length(); i++) {
+                int[] docs = trigrams.get(trigram(query, i));
+                if (docs == null) {
+                    return NO_DOCS;
+                }
+                candidates = candidates == null ? docs : intersect(candidates, docs);
+                if (candidates.length == 0) {
+                    return NO_DOCS;
+                }
+            }
+
+            int[] results = new int[candidates.length];
+            int n = 0;
+            for (int doc : candidates) {
+                if (matches(doc, query)) {
+                    results[n++] = doc;
+                }
+            }
+            return Arrays.copyOf(results, n);
+        }
+
+        private boolean matches(int doc, String query) {
+            return questions[doc].contains(query) || keywords[doc].contains(query);
+        }
+
+        List<SearchHit> rank(String query, int limit) {
+            double[] scores = new double[items.length];
+            double[] tokenBest = new double[items.length];
+            // Documents touched by the current token, so resetting is not a full sweep
+            int[] touched = new int[items.length];
+            int[] touchedCount = new int[1];
+            double queryWeight = 0;
+
+            for (String token : queryTokens(query)) {
+                double tokenWeight = 0;
+                Integer exact = termIds.get(token);
+                if (exact != null) {
+                    tokenWeight = accumulate(exact, 1.0, tokenBest, touched, touchedCount);
+                }
+                boolean expanded = false;
+                if (token.length() >= 4) {
+                    int from = lowerBound(token);
+                    for (int t = from, n = 0; t < terms.length && n < MAX_PREFIX_EXPANSIONS
+                            && terms[t].startsWith(token); t++, n++) {
+                        if (exact == null || t != exact) {
+                            tokenWeight = Math.max(tokenWeight,
+                                    accumulate(t, PREFIX_WEIGHT, tokenBest, touched, touchedCount));
+                            expanded = true;
+                        }
+                    }
+                }
+                if (exact == null && !expanded) {
+                    tokenWeight = fuzzy(token, tokenBest, touched, touchedCount);
+                }
+
+                queryWeight += tokenWeight > 0 ? tokenWeight : unknownTermIdf;
+                for (int i = 0; i < touchedCount[0]; i++) {
+                    int doc = touched[i];
+                    scores[doc] += tokenBest[doc];
+                    tokenBest[doc] = 0;
+                }
+                touchedCount[0] = 0;
+            }
+
+            for (int doc : findContaining(TextNormalizer.fold(query).strip())) {
+                // Marked negative so it can be told apart from ranked documents below
+                scores[doc] = -Math.max(queryWeight > 0 ? scores[doc] / queryWeight : 0, SUBSTRING_SCORE);
+            }
+
+            List<SearchHit> hits = new ArrayList<>();
+            for (int doc = 0; doc < items.length; doc++) {
+                double score = scores[doc] < 0 ? -scores[doc] : scores[doc] / Math.max(queryWeight, 1e-9);
+                if (score > 0) {
+                    hits.add(new SearchHit(items[doc], Math.min(1.0, score)));
+                }
+            }
+            hits.sort(Comparator.comparingDouble(SearchHit::score).reversed());
+            return hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits;
+        }
+
+        /**
+         * Adds the BM25 contribution of one dictionary term to the per-document
+         * best for the current query token. Returns the idf of the term, which
+         * is also how much the token weighs in the normalisation.
+         */
+        private double accumulate(int term, double weight, double[] tokenBest, int[] touched, int[] touchedCount) {
+            int[] docs = termDocs[term];
+            int[] freqs = termFreqs[term];
+            for (int i = 0; i < docs.length; i++) {
+                int doc = docs[i];
+                double tf = freqs[i];
+                double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * docLengths[doc] / avgDocLength));
+                double contribution = weight * termIdf[term] * Math.min(1.0, norm);
+                if (tokenBest[doc] == 0) {
+                    touched[touchedCount[0]++] = doc;
+                }
+                if (contribution > tokenBest[doc]) {
+                    tokenBest[doc] = contribution;
+                }
+            }
+            return termIdf[term];
+        }
+
+        private double fuzzy(String token, double[] tokenBest, int[] touched, int[] touchedCount) {
+            int max = maxEdits(token);
+            if (max == 0) {
+                return 0;
+            }
+            int[][] rows = new int[3][token.length() + max + 1];
+            double tokenWeight = 0;
+            int minLength = Math.max(2, token.length() - max);
+            int maxLength = Math.min(termsByLength.length - 1, token.length() + max);
+            for (int len = minLength; len <= maxLength; len++) {
+                for (int t : termsByLength[len]) {
+                    String term = terms[t];
+                    // Cheap filter first: one of the first two letters must be in place
+                    if (term.charAt(0) != token.charAt(0) && term.charAt(1) != token.charAt(1)) {
+                        continue;
+                    }
+                    int distance = boundedDistance(token, term, max, rows);
+                    if (distance <= max) {
+                        double weight = distance == 1 ? ONE_EDIT_WEIGHT : TWO_EDITS_WEIGHT;
+                        tokenWeight = Math.max(tokenWeight, accumulate(t, weight, tokenBest, touched, touchedCount));
+                    }
+                }
+            }
+            return tokenWeight;
+        }
+
+        private int lowerBound(String key) {
+            int pos = Arrays.binarySearch(terms, key);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+
+        private static int[] intersect(int[] a, int[] b) {
+            int[] out = new int[Math.min(a.length, b.length)];
+            int i = 0, j = 0, n = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    out[n++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return n == out.length ? out : Arrays.copyOf(out, n);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.education.italy.service;
+
+import com.education.italy.model.FaqItem;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Everything derived from one version of the FAQ corpus. Built off to the
+ * side and published with a single reference swap, so readers never block
+ * on a reload and never see an index and listings from different versions.
+ * <p>
+ * Each snapshot has its own generation number; positions in {@link #items()}
+ * (ordinals) are only meaningful together with the generation. The content
+ * fingerprint tells whether two snapshots hold the same items, wherever they
+ * were loaded from.
+ */
+public final class FaqSnapshot {
+
+    private static final AtomicInteger GENERATIONS = new AtomicInteger();
+    private static final FaqSnapshot EMPTY =
+            new FaqSnapshot(List.of(), Map.of(), Map.of(), FaqIndex.empty(), CategoryListings.empty(), 0);
+
+    private final int generation;
+    private final long fingerprint;
+    private final List<FaqItem> items;
+    private final Map<String, FaqItem> byId;
+    private final Map<String, Integer> ordinals;
+    private final FaqIndex index;
+    private final CategoryListings listings;
+
+    private FaqSnapshot(List<FaqItem> items, Map<String, FaqItem> byId, Map<String, Integer> ordinals,
+                        FaqIndex index, CategoryListings listings, long fingerprint) {
+        this.generation = GENERATIONS.getAndIncrement();
+        this.fingerprint = fingerprint;
+        this.items = items;
+        this.byId = byId;
+        this.ordinals = ordinals;
+        this.index = index;
+        this.listings = listings;
+    }
+
+    public static FaqSnapshot empty() {
+        return EMPTY;
+    }
+
+    public static FaqSnapshot build(List<FaqItem> items) {
+        return build(List.copyOf(items), null, fingerprint(items));
+    }
+
+    /**
+     * A snapshot over items read back with their index already built.
+     */
+    static FaqSnapshot build(List<FaqItem> items, FaqIndex index, long fingerprint) {
+        List<FaqItem> copy = List.copyOf(items);
+        Map<String, FaqItem> byId = new HashMap<>(copy.size() * 2);
+        Map<String, Integer> ordinals = new HashMap<>(copy.size() * 2);
+        for (int i = 0; i < copy.size(); i++) {
+            byId.put(copy.get(i).getId(), copy.get(i));
+            ordinals.put(copy.get(i).getId(), i);
+        }
+        return new FaqSnapshot(copy, Map.copyOf(byId), Map.copyOf(ordinals),
+                index != null ? index : FaqIndex.build(copy), CategoryListings.build(copy), fingerprint);
+    }
+
+    /**
+     * Order-independent 64-bit hash of the items' content.
+     */
+    public static long fingerprint(Collection<FaqItem> items) {
+        long sum = 0;
+        for (FaqItem item : items) {
+            long h = 0xcbf29ce484222325L;
+            h = hash(h, item.getId());
+            h = hash(h, item.getCategory() == null ? null : item.getCategory().name());
+            h = hash(h, item.getLang());
+            h = hash(h, item.getQuestion());
+            h = hash(h, item.getAnswer());
+            h = hash(h, item.getKeywords());
+            sum += h;
+        }
+        return sum;
+    }
+
+    // FNV-1a over the chars, with a separator so field boundaries count
+    private static long hash(long h, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                h = (h ^ value.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        return (h ^ (value == null ? 0xffff : 0xfffe)) * 0x100000001b3L;
+    }
+
+    public int generation() {
+        return generation;
+    }
+
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    public FaqItem byId(String id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Position of the item in {@link #items()}, or -1.
+     */
+    public int ordinalOf(String id) {
+        Integer ordinal = ordinals.get(id);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public FaqItem item(int ordinal) {
+        return items.get(ordinal);
+    }
+
+    public List<FaqItem> items() {
+        return items;
+    }
+
+    public FaqIndex index() {
+        return index;
+    }
+
+    public CategoryListings listings() {
+        return listings;
+    }
+}
@@ -0,0 +1,338 @@
+package com.education.italy.service;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The FAQ corpus compiled into one binary file, together with its search
+ * index, so that startup maps the file instead of parsing JSON, scanning
+ * the database and tokenizing every question.
+ * <p>
+ * Layout (big-endian; string refs are offset and byte length into the
+ * UTF-8 string table at the end, length -1 for null):
+ * <pre>
+ * header   magic, version, content fingerprint, item count, language count,
+ *          string table offset and length
+ * items    per item: refs to id, category, lang, question, answer, keywords
+ * langs    per language: ref to the code, offset of its section
+ * section  documents (item numbers in id order), refs to the folded
+ *          question and keywords, document lengths; the term dictionary
+ *          with postings; the trigram postings ({@link FaqIndex.LangData})
+ * strings  deduplicated UTF-8
+ * </pre>
+ * Answers, by far the largest part, are not copied onto the heap: items
+ * decode them from the mapping each time they are sent. The file is written
+ * to a temporary name and moved into place, since a mapped file must not be
+ * truncated underneath a running bot.
+ * <p>
+ * Built by the {@code compileFaqSnapshot} Gradle task, which runs
+ * {@link #main}.
+ */
+public final class FaqSnapshotFile {
+
+    private static final int MAGIC = 0x46415153; // "FAQS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int ITEM_BYTES = 6 * 8;
+    private static final int LANG_BYTES = 3 * 4;
+
+    private FaqSnapshotFile() {
+    }
+
+    /**
+     * Usage: {@code FaqSnapshotFile <faq.json> <target file>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: FaqSnapshotFile <faq.json> <target file>");
+            System.exit(2);
+        }
+        List<FaqItem> items = new FaqContentLoader(new ObjectMapper(), new FileSystemResource(args[0]), "").load();
+        Path target = Path.of(args[1]);
+        write(items, target);
+        System.out.println("Compiled " + items.size() + " FAQ items into " + target + " (" + Files.size(target)
+                + " bytes).");
+    }
+
+    public static void write(List<FaqItem> items, Path target) throws IOException {
+        FaqIndex index = FaqIndex.build(items);
+        Map<String, FaqIndex.LangData> byLang = index.data();
+        Strings strings = new Strings();
+        Map<FaqItem, Integer> itemNumbers = new IdentityHashMap<>();
+
+        ByteArrayOutputStream itemBytes = new ByteArrayOutputStream(items.size() * ITEM_BYTES);
+        DataOutputStream out = new DataOutputStream(itemBytes);
+        for (FaqItem item : items) {
+            itemNumbers.put(item, itemNumbers.size());
+            strings.ref(out, item.getId());
+            strings.ref(out, item.getCategory().name());
+            strings.ref(out, item.getLang());
+            strings.ref(out, item.getQuestion());
+            strings.ref(out, item.getAnswer());
+            strings.ref(out, item.getKeywords());
+        }
+
+        List<String> langs = new ArrayList<>(byLang.keySet());
+        List<byte[]> sections = new ArrayList<>(langs.size());
+        for (String lang : langs) {
+            sections.add(section(byLang.get(lang), itemNumbers, strings));
+        }
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        out = new DataOutputStream(file);
+        int offset = HEADER_BYTES + itemBytes.size() + langs.size() * LANG_BYTES;
+        int stringsOffset = offset + sections.stream().mapToInt(section -> section.length).sum();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(FaqSnapshot.fingerprint(items));
+        out.writeInt(items.size());
+        out.writeInt(langs.size());
+        out.writeInt(stringsOffset);
+        out.writeInt(strings.size());
+        itemBytes.writeTo(out);
+        for (int i = 0; i < langs.size(); i++) {
+            strings.ref(out, langs.get(i));
+            out.writeInt(offset);
+            offset += sections.get(i).length;
+        }
+        for (byte[] section : sections) {
+            out.write(section);
+        }
+        strings.writeTo(out);
+        out.flush();
+
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        Files.write(temp, file.toByteArray());
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] section(FaqIndex.LangData data, Map<FaqItem, Integer> itemNumbers, Strings strings)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int docs = data.items().length;
+        out.writeInt(docs);
+        for (FaqItem item : data.items()) {
+            out.writeInt(itemNumbers.get(item));
+        }
+        for (int doc = 0; doc < docs; doc++) {
+            strings.ref(out, data.questions()[doc]);
+            strings.ref(out, data.keywords()[doc]);
+        }
+        writeInts(out, data.docLengths());
+
+        out.writeInt(data.terms().length);
+        for (int t = 0; t < data.terms().length; t++) {
+            strings.ref(out, data.terms()[t]);
+            out.writeInt(data.termDocs()[t].length);
+        }
+        for (int t = 0; t < data.terms().length; t++) {
+            writeInts(out, data.termDocs()[t]);
+            writeInts(out, data.termFreqs()[t]);
+        }
+
+        out.writeInt(data.grams().length);
+        for (int g = 0; g < data.grams().length; g++) {
+            out.writeLong(data.grams()[g]);
+            out.writeInt(data.gramDocs()[g].length);
+        }
+        for (int[] gramDocs : data.gramDocs()) {
+            writeInts(out, gramDocs);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Maps {@code file} and builds a snapshot on it. The mapping lives as
+     * long as items of the snapshot are reachable.
+     */
+    public static FaqSnapshot map(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a FAQ snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(file + " has snapshot format " + buffer.getInt(4) + ", expected " + VERSION);
+        }
+        Reader reader = new Reader(buffer, buffer.getInt(24));
+        long fingerprint = buffer.getLong(8);
+        int itemCount = buffer.getInt(16);
+        int langCount = buffer.getInt(20);
+
+        FaqItem[] items = new FaqItem[itemCount];
+        int pos = HEADER_BYTES;
+        for (int i = 0; i < itemCount; i++, pos += ITEM_BYTES) {
+            items[i] = new MappedFaqItem(reader.string(pos), Category.valueOf(reader.string(pos + 8)),
+                    reader.string(pos + 16), reader.string(pos + 24), reader, pos + 32, reader.string(pos + 40));
+        }
+
+        Map<String, FaqIndex.LangData> byLang = new HashMap<>();
+        for (int l = 0; l < langCount; l++, pos += LANG_BYTES) {
+            byLang.put(reader.string(pos), reader.section(buffer.getInt(pos + 8), items));
+        }
+        return FaqSnapshot.build(List.of(items), FaqIndex.of(byLang), fingerprint);
+    }
+
+    private static final class Strings {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final Map<String, int[]> refs = new HashMap<>();
+
+        void ref(DataOutputStream out, String value) {
+            int[] ref = value == null ? new int[]{0, -1} : refs.computeIfAbsent(value, v -> {
+                byte[] utf8 = v.getBytes(StandardCharsets.UTF_8);
+                int offset = bytes.size();
+                bytes.writeBytes(utf8);
+                return new int[]{offset, utf8.length};
+            });
+            try {
+                out.writeInt(ref[0]);
+                out.writeInt(ref[1]);
+            } catch (IOException e) {
+                // Only ever writing to memory
+                throw new IllegalStateException(e);
+            }
+        }
+
+        int size() {
+            return bytes.size();
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            bytes.writeTo(out);
+        }
+    }
+
+    private static final class Reader {
+
+        private final ByteBuffer buffer;
+        private final int stringsOffset;
+
+        Reader(ByteBuffer buffer, int stringsOffset) {
+            this.buffer = buffer;
+            this.stringsOffset = stringsOffset;
+        }
+
+        /**
+         * Decodes the string ref stored at {@code pos}.
+         */
+        String string(int pos) {
+            int length = buffer.getInt(pos + 4);
+            if (length < 0) {
+                return null;
+            }
+            byte[] utf8 = new byte[length];
+            buffer.get(stringsOffset + buffer.getInt(pos), utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        FaqIndex.LangData section(int pos, FaqItem[] allItems) {
+            int docs = buffer.getInt(pos);
+            pos += 4;
+            FaqItem[] items = new FaqItem[docs];
+            for (int doc = 0; doc < docs; doc++, pos += 4) {
+                items[doc] = allItems[buffer.getInt(pos)];
+            }
+            String[] questions = new String[docs];
+            String[] keywords = new String[docs];
+            for (int doc = 0; doc < docs; doc++, pos += 16) {
+                questions[doc] = string(pos);
+                keywords[doc] = string(pos + 8);
+            }
+            int[] docLengths = ints(pos, docs);
+            pos += docs * 4;
+
+            int termCount = buffer.getInt(pos);
+            pos += 4;
+            String[] terms = new String[termCount];
+            int[] termDocCounts = new int[termCount];
+            for (int t = 0; t < termCount; t++, pos += 12) {
+                terms[t] = string(pos);
+                termDocCounts[t] = buffer.getInt(pos + 8);
+            }
+            int[][] termDocs = new int[termCount][];
+            int[][] termFreqs = new int[termCount][];
+            for (int t = 0; t < termCount; t++) {
+                termDocs[t] = ints(pos, termDocCounts[t]);
+                pos += termDocCounts[t] * 4;
+                termFreqs[t] = ints(pos, termDocCounts[t]);
+                pos += termDocCounts[t] * 4;
+            }
+
+            int gramCount = buffer.getInt(pos);
+            pos += 4;
+            long[] grams = new long[gramCount];
+            int[] gramDocCounts = new int[gramCount];
+            for (int g = 0; g < gramCount; g++, pos += 12) {
+                grams[g] = buffer.getLong(pos);
+                gramDocCounts[g] = buffer.getInt(pos + 8);
+            }
+            int[][] gramDocs = new int[gramCount][];
+            for (int g = 0; g < gramCount; g++) {
+                gramDocs[g] = ints(pos, gramDocCounts[g]);
+                pos += gramDocCounts[g] * 4;
+            }
+            return new FaqIndex.LangData(items, questions, keywords, docLengths, terms, termDocs, termFreqs,
+                    grams, gramDocs);
+        }
+
+        private int[] ints(int pos, int count) {
+            int[] values = new int[count];
+            buffer.slice(pos, count * 4).asIntBuffer().get(values);
+            return values;
+        }
+    }
+
+    /**
+     * An item whose answer stays in the mapped file until it is read.
+     */
+    private static final class MappedFaqItem extends FaqItem {
+
+        private final Reader reader;
+        private final int answerRef;
+
+        MappedFaqItem(String id, Category category, String lang, String question, Reader reader, int answerRef,
+                      String keywords) {
+            super(id, category, lang, question, null, keywords);
+            this.reader = reader;
+            this.answerRef = answerRef;
+        }
+
+        @Override
+        public String getAnswer() {
+            String answer = super.getAnswer();
+            return answer != null ? answer : reader.string(answerRef);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.education.italy.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Searches the snapshot's {@link FaqIndex}: no I/O, typo tolerant.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.search.engine", havingValue = "memory", matchIfMissing = true)
+public class InMemorySearchEngine implements SearchEngine {
+
+    @Override
+    public List<SearchHit> search(FaqSnapshot snapshot, String query, String lang, int limit) {
+        return snapshot.index().rank(query, lang, limit);
+    }
+}
@@ -0,0 +1,108 @@
+package com.education.italy.service;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Full-text search in Postgres: a generated, weighted {@code tsvector}
+ * column on faq_item (question A, keywords B, answer C; russian or english
+ * stemming by {@code lang}) behind a GIN index, ranked with {@code ts_rank}.
+ * <p>
+ * The question is stemmed with the same configuration and its lexemes are
+ * OR-ed, so a hit needs one shared word and more shared words rank higher.
+ * ts_rank is unbounded, so it is mapped onto 0..1 with
+ * {@code rank / (rank + RANK_HALF)}. If the query fails, or does not answer
+ * within the {@link DatabaseGuard} deadline, the in-memory index answers
+ * instead.
+ * <p>
+ * That fallback is why the snapshot still builds its in-memory
+ * {@link FaqIndex} with this engine: it moves ranking into Postgres and
+ * keeps search working through an outage, but does not shrink the heap
+ * needed for the corpus.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.search.engine", havingValue = "postgres")
+// The column is added to the table Hibernate creates
+@DependsOn("entityManagerFactory")
+public class PostgresSearchEngine implements SearchEngine {
+
+    // ts_rank (weights 0.1/0.2/0.4/1.0) at which a hit scores 0.5
+    private static final double RANK_HALF = 0.1;
+
+    private static final String CONFIG_FOR_LANG =
+            "CASE WHEN lang = 'ru' THEN 'russian'::regconfig ELSE 'english'::regconfig END";
+
+    private static final String[] SCHEMA = {
+            """
+            ALTER TABLE faq_item ADD COLUMN IF NOT EXISTS search_vector tsvector
+            GENERATED ALWAYS AS (
+                setweight(to_tsvector(%1$s, coalesce(question, '')), 'A')
+                || setweight(to_tsvector(%1$s, coalesce(keywords, '')), 'B')
+                || setweight(to_tsvector(%1$s, coalesce(answer, '')), 'C')
+            ) STORED
+            """.formatted(CONFIG_FOR_LANG),
+            "CREATE INDEX IF NOT EXISTS faq_item_search_idx ON faq_item USING GIN (search_vector)"
+    };
+
+    /**
+     * The OR of the lexemes from {@code unnest(tsvector)}. They are already
+     * stemmed, so this is tsquery input rather than to_tsquery, which would
+     * parse them again: each is quoted with quotes and backslashes doubled.
+     * (quote_literal is no use here; it turns a backslash into E'...',
+     * which tsquery rejects.)
+     */
+    static final String OR_QUERY = """
+            coalesce(string_agg('''' || replace(replace(lexeme, '\\', '\\\\'), '''', '''''') || '''', ' | '), '')\
+            ::tsquery""";
+
+    private static final String SEARCH = """
+            SELECT f.id, f.category, f.lang, f.question, f.answer, f.keywords,
+                   ts_rank('{0.1, 0.2, 0.4, 1.0}', f.search_vector, q.query) AS rank
+            FROM faq_item f,
+                 (SELECT %s AS query FROM unnest(to_tsvector(?::regconfig, ?))) q
+            WHERE f.lang = ? AND f.search_vector @@ q.query
+            ORDER BY rank DESC, f.id
+            LIMIT ?
+            """.formatted(OR_QUERY);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseGuard guard;
+    private final InMemorySearchEngine fallback = new InMemorySearchEngine();
+
+    public PostgresSearchEngine(JdbcTemplate jdbcTemplate, DatabaseGuard guard) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.guard = guard;
+    }
+
+    @PostConstruct
+    public void createSchema() {
+        for (String statement : SCHEMA) {
+            jdbcTemplate.execute(statement);
+        }
+    }
+
+    @Override
+    public List<SearchHit> search(FaqSnapshot snapshot, String query, String lang, int limit) {
+        String config = "ru".equals(lang) ? "russian" : "english";
+        try {
+            return guard.call(() -> jdbcTemplate.query(SEARCH, (rs, row) -> {
+                FaqItem item = new FaqItem(rs.getString("id"), Category.valueOf(rs.getString("category")),
+                        rs.getString("lang"), rs.getString("question"), rs.getString("answer"),
+                        rs.getString("keywords"));
+                double rank = rs.getDouble("rank");
+                return new SearchHit(item, rank / (rank + RANK_HALF));
+            }, config, query, lang, limit), () -> fallback.search(snapshot, query, lang, limit));
+        } catch (DataAccessException e) {
+            System.err.println("Full-text search failed, using the in-memory index: " + e.getMessage());
+            return fallback.search(snapshot, query, lang, limit);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.education.italy.service;
+
+import com.education.italy.model.FaqItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of search results per language and normalized question.
+ * Empty results are cached too, so the "don't know" answer is as cheap as a
+ * hit.
+ * <p>
+ * Eviction follows W-TinyLFU: new keys enter a small LRU window; when it
+ * overflows, its oldest key competes with the main space's eviction
+ * candidate and the one asked for more often (per a decaying frequency
+ * sketch) stays. One-off questions therefore cannot flush the popular ones.
+ * The main space is a segmented LRU (probation, then protected once hit).
+ * <p>
+ * Entries store FAQ ids and scores, resolved against the snapshot they were
+ * computed on; after a reload they no longer match and count as misses.
+ */
+public class QueryResultCache {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final int maximumSize;
+    private final int windowMax;
+    private final int protectedMax;
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final Node[] heads = {new Node(null), new Node(null), new Node(null)};
+    private final int[] sizes = new int[3];
+    private final FrequencySketch sketch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public QueryResultCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+        this.windowMax = Math.max(1, maximumSize / 100);
+        this.protectedMax = (int) ((maximumSize - windowMax) * 0.8);
+        this.sketch = new FrequencySketch(Math.max(16, maximumSize));
+        for (Node head : heads) {
+            head.prev = head;
+            head.next = head;
+        }
+    }
+
+    /**
+     * Cache key: language plus the question lower-cased, stripped of
+     * punctuation and with whitespace collapsed. Questions sharing a key must
+     * rank alike, so search the same {@link TextNormalizer#normalize} form.
+     */
+    public static String key(String query, String lang) {
+        return lang + ':' + TextNormalizer.normalize(query);
+    }
+
+    /**
+     * Returns the cached hits for {@code key} computed on {@code snapshot},
+     * or null on a miss.
+     */
+    public List<SearchHit> get(String key, FaqSnapshot snapshot) {
+        if (maximumSize <= 0) {
+            return null;
+        }
+        Entry entry;
+        synchronized (this) {
+            sketch.increment(key);
+            Node node = nodes.get(key);
+            entry = node == null ? null : node.entry;
+            if (entry != null && entry.snapshot == snapshot) {
+                onHit(node);
+            } else {
+                entry = null;
+            }
+        }
+        List<SearchHit> result = entry == null ? null : entry.resolve();
+        if (result == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return result;
+    }
+
+    public void put(String key, FaqSnapshot snapshot, List<SearchHit> result) {
+        if (maximumSize <= 0) {
+            return;
+        }
+        Entry entry = Entry.of(snapshot, result);
+        synchronized (this) {
+            Node node = nodes.get(key);
+            if (node != null) {
+                node.entry = entry;
+                return;
+            }
+            node = new Node(key);
+            node.entry = entry;
+            nodes.put(key, node);
+            link(node, WINDOW);
+            if (sizes[WINDOW] > windowMax) {
+                admit(heads[WINDOW].next);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        nodes.clear();
+        for (int segment = 0; segment < heads.length; segment++) {
+            heads[segment].prev = heads[segment];
+            heads[segment].next = heads[segment];
+            sizes[segment] = 0;
+        }
+    }
+
+    public Stats stats() {
+        int size;
+        synchronized (this) {
+            size = nodes.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private void onHit(Node node) {
+        unlink(node);
+        if (node.segment == PROBATION) {
+            link(node, PROTECTED);
+            if (sizes[PROTECTED] > protectedMax) {
+                Node demoted = heads[PROTECTED].next;
+                unlink(demoted);
+                link(demoted, PROBATION);
+            }
+        } else {
+            link(node, node.segment);
+        }
+    }
+
+    /**
+     * Moves the window's oldest key into the main space, evicting whichever
+     * of it and the main space's oldest probation key is less frequent.
+     */
+    private void admit(Node candidate) {
+        unlink(candidate);
+        if (sizes[PROBATION] + sizes[PROTECTED] < maximumSize - windowMax) {
+            link(candidate, PROBATION);
+            return;
+        }
+        Node victim = heads[PROBATION].next;
+        if (victim == heads[PROBATION]) {
+            victim = heads[PROTECTED].next;
+        }
+        if (victim != heads[PROTECTED] && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            unlink(victim);
+            nodes.remove(victim.key);
+            link(candidate, PROBATION);
+        } else {
+            nodes.remove(candidate.key);
+        }
+        evictions.increment();
+    }
+
+    private void link(Node node, int segment) {
+        Node head = heads[segment];
+        node.segment = segment;
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+        sizes[segment]++;
+    }
+
+    private void unlink(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        sizes[node.segment]--;
+    }
+
+    private static final class Node {
+
+        final String key;
+        Entry entry;
+        int segment;
+        Node prev;
+        Node next;
+
+        Node(String key) {
+            this.key = key;
+        }
+    }
+
+    private record Entry(FaqSnapshot snapshot, String[] ids, double[] scores) {
+
+        static Entry of(FaqSnapshot snapshot, List<SearchHit> result) {
+            String[] ids = new String[result.size()];
+            double[] scores = new double[result.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = result.get(i).item().getId();
+                scores[i] = result.get(i).score();
+            }
+            return new Entry(snapshot, ids, scores);
+        }
+
+        List<SearchHit> resolve() {
+            if (ids.length == 0) {
+                return List.of();
+            }
+            List<SearchHit> hits = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                FaqItem item = snapshot.byId(ids[i]);
+                if (item == null) {
+                    // Found by an engine outside the snapshot, e.g. Postgres ahead of a refresh
+                    return null;
+                }
+                hits.add(new SearchHit(item, scores[i]));
+            }
+            return hits;
+        }
+    }
+
+    /**
+     * Count-min sketch with four hash functions and counters saturating at
+     * 15, since only relative popularity matters. All
+     * counters are halved every {@code 10 * capacity} increments so that
+     * popularity ages out.
+     */
+    private static final class FrequencySketch {
+
+        private final byte[] counters;
+        private final int mask;
+        private final int resetAt;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int size = Integer.highestOneBit(capacity * 4 - 1) << 1;
+            this.counters = new byte[size];
+            this.mask = size - 1;
+            this.resetAt = capacity * 10;
+        }
+
+        void increment(String key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                if (counters[index] < 15) {
+                    counters[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= resetAt) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(String key) {
+            int hash = spread(key.hashCode());
+            int min = 15;
+            for (int i = 0; i < 4; i++) {
+                min = Math.min(min, counters[indexOf(hash, i)]);
+            }
+            return min;
+        }
+
+        private int indexOf(int hash, int i) {
+            int h = hash * (0x9E3779B9 + 2 * i + 1);
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private static int spread(int x) {
+            x = (x ^ (x >>> 16)) * 0x45d9f3b;
+            return x ^ (x >>> 16);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.education.italy.service;
+
+import java.util.List;
+
+/**
+ * Ranks FAQ items against a free-text question. Selected with
+ * {@code bot.search.engine}: {@code memory} (default) or {@code postgres}.
+ */
+public interface SearchEngine {
+
+    /**
+     * Best hits first, at most {@code limit}, with scores on the 0..1 scale
+     * of {@link BotService}'s thresholds.
+     *
+     * @param snapshot the content currently served, for engines that search in process
+     */
+    List<SearchHit> search(FaqSnapshot snapshot, String query, String lang, int limit);
+}
@@ -0,0 +1,10 @@
+package com.education.italy.service;
+
+import com.education.italy.model.FaqItem;
+
+/**
+ * A ranked search result. The score is normalised to 0..1: roughly the share
+ * of the query (weighted by term rarity) that the item answers.
+ */
+public record SearchHit(FaqItem item, double score) {
+}
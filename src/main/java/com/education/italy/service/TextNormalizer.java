@@ -0,0 +1,54 @@
+package com.education.italy.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Text folding shared by indexing and querying, so both sides see the same
+ * characters. Works for Russian and English alike: lower-cases with the root
+ * locale and maps "ё" to "е", which Russian users often type interchangeably.
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    /**
+     * Folded tokens joined by single spaces: punctuation and runs of
+     * whitespace no longer matter.
+     */
+    public static String normalize(String text) {
+        return String.join(" ", tokens(text));
+    }
+
+    /**
+     * Splits folded text into word tokens (letters and digits only).
+     */
+    public static List<String> tokens(String text) {
+        String folded = fold(text);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < folded.length(); i++) {
+            if (Character.isLetterOrDigit(folded.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(folded.substring(start));
+        }
+        return tokens;
+    }
+}
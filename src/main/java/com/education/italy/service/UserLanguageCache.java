@@ -0,0 +1,285 @@
+package com.education.italy.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded chatId -> language cache.
+ * <p>
+ * Keys are stored as primitive longs in open-addressing tables (no boxed
+ * {@code Long}s, no per-entry node objects). The cache is split into
+ * independently locked segments; each segment evicts its least recently
+ * used entry when full and drops entries older than the TTL on access.
+ */
+public class UserLanguageCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public UserLanguageCache(int maxSize, Duration ttl) {
+        int perSegment = Math.max(1, (maxSize + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Returns the cached language, or {@code null} on a miss.
+     */
+    public String get(long chatId) {
+        int hash = hash(chatId);
+        String lang = segmentFor(hash).get(chatId, hash, System.nanoTime());
+        if (lang == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return lang;
+    }
+
+    public void put(long chatId, String lang) {
+        int hash = hash(chatId);
+        segmentFor(hash).put(chatId, hash, lang, System.nanoTime() + ttlNanos);
+    }
+
+    public void invalidate(long chatId) {
+        int hash = hash(chatId);
+        segmentFor(hash).remove(chatId, hash);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public Stats stats() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    public record Stats(long hits, long misses, long evictions, long size) {
+
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> 28) & (SEGMENTS - 1)];
+    }
+
+    private static int hash(long key) {
+        // Murmur3 finalizer: chat ids are sequential-ish, spread them out
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private final class Segment {
+
+        private static final int NONE = -1;
+
+        private final int capacity;
+        private final int mask;
+        // Open-addressing table of entry index + 1 (0 = empty slot)
+        private final int[] table;
+
+        // Entry storage, linked into an LRU list through prev/next indices
+        private final long[] keys;
+        private final String[] values;
+        private final long[] expiresAt;
+        private final int[] prev;
+        private final int[] next;
+        private int head = NONE;
+        private int tail = NONE;
+        private int size;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+            this.mask = tableSize - 1;
+            this.table = new int[tableSize];
+            this.keys = new long[capacity];
+            this.values = new String[capacity];
+            this.expiresAt = new long[capacity];
+            this.prev = new int[capacity];
+            this.next = new int[capacity];
+        }
+
+        synchronized String get(long key, int hash, long now) {
+            int slot = findSlot(key, hash);
+            if (slot < 0) {
+                return null;
+            }
+            int entry = table[slot] - 1;
+            if (expiresAt[entry] - now < 0) {
+                removeAt(slot);
+                evictions.increment();
+                return null;
+            }
+            moveToHead(entry);
+            return values[entry];
+        }
+
+        synchronized void put(long key, int hash, String value, long expires) {
+            int slot = findSlot(key, hash);
+            if (slot >= 0) {
+                int entry = table[slot] - 1;
+                values[entry] = value;
+                expiresAt[entry] = expires;
+                moveToHead(entry);
+                return;
+            }
+
+            if (size == capacity) {
+                removeAt(findSlot(keys[tail], UserLanguageCache.hash(keys[tail])));
+                evictions.increment();
+            }
+            // Entries are kept dense: the new one always goes at index size
+            int entry = size++;
+            keys[entry] = key;
+            values[entry] = value;
+            expiresAt[entry] = expires;
+            linkFirst(entry);
+
+            int i = hash & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = entry + 1;
+        }
+
+        synchronized void remove(long key, int hash) {
+            int slot = findSlot(key, hash);
+            if (slot >= 0) {
+                removeAt(slot);
+            }
+        }
+
+        synchronized void clear() {
+            Arrays.fill(table, 0);
+            Arrays.fill(values, null);
+            head = NONE;
+            tail = NONE;
+            size = 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private int findSlot(long key, int hash) {
+            int i = hash & mask;
+            while (true) {
+                int entry = table[i];
+                if (entry == 0) {
+                    return -1;
+                }
+                if (keys[entry - 1] == key) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        private void removeAt(int slot) {
+            int entry = table[slot] - 1;
+            unlink(entry);
+            deleteSlot(slot);
+
+            // Keep entries dense by moving the last one into the freed index
+            int last = --size;
+            if (entry != last) {
+                int lastSlot = findSlot(keys[last], UserLanguageCache.hash(keys[last]));
+                keys[entry] = keys[last];
+                values[entry] = values[last];
+                expiresAt[entry] = expiresAt[last];
+                prev[entry] = prev[last];
+                next[entry] = next[last];
+                if (prev[entry] != NONE) {
+                    next[prev[entry]] = entry;
+                } else {
+                    head = entry;
+                }
+                if (next[entry] != NONE) {
+                    prev[next[entry]] = entry;
+                } else {
+                    tail = entry;
+                }
+                table[lastSlot] = entry + 1;
+            }
+            values[last] = null;
+        }
+
+        /**
+         * Backward-shift deletion, so linear probing needs no tombstones.
+         */
+        private void deleteSlot(int slot) {
+            int hole = slot;
+            int i = slot;
+            while (true) {
+                i = (i + 1) & mask;
+                int entry = table[i];
+                if (entry == 0) {
+                    break;
+                }
+                int ideal = UserLanguageCache.hash(keys[entry - 1]) & mask;
+                if (((i - ideal) & mask) >= ((i - hole) & mask)) {
+                    table[hole] = entry;
+                    hole = i;
+                }
+            }
+            table[hole] = 0;
+        }
+
+        private void moveToHead(int entry) {
+            if (entry != head) {
+                unlink(entry);
+                linkFirst(entry);
+            }
+        }
+
+        private void linkFirst(int entry) {
+            prev[entry] = NONE;
+            next[entry] = head;
+            if (head != NONE) {
+                prev[head] = entry;
+            }
+            head = entry;
+            if (tail == NONE) {
+                tail = entry;
+            }
+        }
+
+        private void unlink(int entry) {
+            int p = prev[entry];
+            int n = next[entry];
+            if (p != NONE) {
+                next[p] = n;
+            } else {
+                head = n;
+            }
+            if (n != NONE) {
+                prev[n] = p;
+            } else {
+                tail = p;
+            }
+        }
+    }
+}
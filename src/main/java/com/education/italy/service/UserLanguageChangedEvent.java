@@ -0,0 +1,7 @@
+package com.education.italy.service;
+
+/**
+ * Published when a user picks a language; cached copies elsewhere are stale.
+ */
+public record UserLanguageChangedEvent(long chatId) {
+}
@@ -0,0 +1,189 @@
+package com.education.italy.service;
+
+import com.education.italy.repository.UserRepository;
+import com.education.italy.repository.UserWriteRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User registration and language preference. Language lookups are served
+ * from {@link UserLanguageCache}; every write goes through to the cache.
+ * <p>
+ * Registration is a single upsert. Language changes are buffered for
+ * {@code bot.users.write-behind} and flushed as one batch, so a burst of
+ * changes (or several taps by one user) costs one round trip; a zero
+ * duration writes them immediately.
+ * <p>
+ * Database calls go through {@link DatabaseGuard}. While Postgres is slow or
+ * down, languages come from the cache (the default for users not cached)
+ * and registrations and language changes are queued, then replayed once the
+ * database is back. Flushes run one at a time and without the guard's
+ * deadline, so a slow batch is waited for rather than abandoned and
+ * overtaken by a newer one.
+ */
+@Service
+public class UserService {
+
+    public static final String DEFAULT_LANGUAGE = "ru";
+
+    private static final Duration REPLAY_INTERVAL = Duration.ofSeconds(1);
+
+    private final UserRepository userRepository;
+    private final UserWriteRepository userWriteRepository;
+    private final DatabaseGuard guard;
+    private final UserLanguageCache languageCache;
+    private final ApplicationEventPublisher events;
+    private final Map<Long, String> pendingLanguages = new ConcurrentHashMap<>();
+    private final Set<Long> pendingRegistrations = ConcurrentHashMap.newKeySet();
+    private final boolean writeThrough;
+    private final ScheduledExecutorService flusher;
+
+    public UserService(UserRepository userRepository, UserWriteRepository userWriteRepository, DatabaseGuard guard,
+                       ApplicationEventPublisher events,
+                       @Value("${bot.users.cache-size:100000}") int cacheSize,
+                       @Value("${bot.users.cache-ttl:PT30M}") Duration cacheTtl,
+                       @Value("${bot.users.write-behind:PT0.2S}") Duration writeBehind) {
+        this.userRepository = userRepository;
+        this.userWriteRepository = userWriteRepository;
+        this.guard = guard;
+        this.languageCache = new UserLanguageCache(cacheSize, cacheTtl);
+        this.events = events;
+        this.writeThrough = writeBehind.isZero();
+        // Without write-behind the flusher only replays writes queued during an outage
+        long period = writeThrough ? REPLAY_INTERVAL.toMillis() : writeBehind.toMillis();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("user-write-behind").daemon().factory());
+        flusher.scheduleWithFixedDelay(this::flushSafely, period, period, TimeUnit.MILLISECONDS);
+        guard.onRecovery(this::flushSafely);
+    }
+
+    public void registerUser(long chatId) {
+        if (languageCache.get(chatId) != null) {
+            // Cached means the row exists already
+            return;
+        }
+        String lang = guard.call(() -> userWriteRepository.register(chatId, DEFAULT_LANGUAGE, LocalDateTime.now()),
+                () -> null);
+        if (lang == null) {
+            // Inserted on replay; not cached, since the user may exist with another language
+            pendingRegistrations.add(chatId);
+            return;
+        }
+        String pending = pendingLanguages.get(chatId);
+        languageCache.put(chatId, pending != null ? pending : lang);
+    }
+
+    public String getUserLanguage(long chatId) {
+        String lang = findUserLanguage(chatId);
+        return lang != null ? lang : DEFAULT_LANGUAGE;
+    }
+
+    /**
+     * Like {@link #getUserLanguage}, but null when the language is not
+     * cached and the database cannot be asked right now, so callers can
+     * avoid keeping the default as if it were the user's choice.
+     */
+    public String findUserLanguage(long chatId) {
+        String cached = languageCache.get(chatId);
+        if (cached != null) {
+            return cached;
+        }
+        String pending = pendingLanguages.get(chatId);
+        if (pending != null) {
+            return pending;
+        }
+        // Unknown users are not cached, so a later /start still inserts the row
+        return guard.call(() -> userRepository.findById(chatId)
+                .map(user -> {
+                    languageCache.put(chatId, user.getLanguage());
+                    return user.getLanguage();
+                })
+                .orElse(DEFAULT_LANGUAGE), () -> null);
+    }
+
+    public void updateUserLanguage(long chatId, String lang) {
+        languageCache.put(chatId, lang);
+        if (!writeThrough
+                || !guard.run(() -> userWriteRepository.upsertLanguages(Map.of(chatId, lang), LocalDateTime.now()))) {
+            // Announced by the flush that writes it
+            pendingLanguages.put(chatId, lang);
+            return;
+        }
+        // An older change queued during an outage must not be replayed over this one
+        pendingLanguages.remove(chatId);
+        events.publishEvent(new UserLanguageChangedEvent(chatId));
+    }
+
+    /**
+     * Drops a cached language changed elsewhere, e.g. on another node.
+     */
+    public void invalidateLanguage(long chatId) {
+        languageCache.invalidate(chatId);
+    }
+
+    public void clearLanguageCache() {
+        languageCache.clear();
+    }
+
+    /**
+     * Writes queued registrations and buffered language changes, one batch
+     * each, and publishes a {@link UserLanguageChangedEvent} per language
+     * written, so other nodes never reload a value that is not stored yet.
+     * Entries changed again while a batch was in flight stay queued for the
+     * next flush.
+     */
+    public synchronized void flushPendingLanguages() {
+        if (!pendingRegistrations.isEmpty()) {
+            Set<Long> registrations = Set.copyOf(pendingRegistrations);
+            userWriteRepository.registerAll(registrations, DEFAULT_LANGUAGE, LocalDateTime.now());
+            pendingRegistrations.removeAll(registrations);
+        }
+        if (pendingLanguages.isEmpty()) {
+            return;
+        }
+        Map<Long, String> batch = new HashMap<>(pendingLanguages);
+        userWriteRepository.upsertLanguages(batch, LocalDateTime.now());
+        batch.forEach(pendingLanguages::remove);
+        for (Long chatId : batch.keySet()) {
+            events.publishEvent(new UserLanguageChangedEvent(chatId));
+        }
+    }
+
+    private void flushSafely() {
+        if (pendingWrites() == 0) {
+            return;
+        }
+        try {
+            // Not written (database unavailable) means kept for the next tick
+            guard.runToCompletion(this::flushPendingLanguages);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to flush " + pendingWrites() + " user write(s): " + e.getMessage());
+        }
+    }
+
+    public int pendingWrites() {
+        return pendingLanguages.size() + pendingRegistrations.size();
+    }
+
+    public UserLanguageCache.Stats languageCacheStats() {
+        return languageCache.stats();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flushSafely();
+    }
+}
@@ -0,0 +1,109 @@
+package com.education.italy.analytics;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import com.education.italy.repository.SearchAnalyticsRepository;
+import com.education.italy.service.SearchHit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class SearchAnalyticsTest {
+
+    private static final long HOUR = 3_600_000;
+
+    @Test
+    void aggregatesPerHourLanguageAndQueryInLockOrder() {
+        List<SearchEvent> events = List.of(
+                new SearchEvent(HOUR + 10, "en", "visa", List.of("en-1"), 2000),
+                new SearchEvent(HOUR + 20, "en", "tax", List.of(), 4000),
+                new SearchEvent(HOUR + 30, "en", "tax", List.of(), 6000),
+                new SearchEvent(2 * HOUR, "ru", "виза", List.of(), 1000));
+
+        assertEquals(List.of(
+                new HourlyCount(HOUR, "en", null, 3, 2, 12),
+                new HourlyCount(HOUR, "en", "tax", 2, 2, 0),
+                new HourlyCount(HOUR, "en", "visa", 1, 0, 0),
+                new HourlyCount(2 * HOUR, "ru", null, 1, 1, 1),
+                new HourlyCount(2 * HOUR, "ru", "виза", 1, 1, 0)), SearchAnalytics.aggregate(events));
+    }
+
+    @Test
+    void writesBufferedSearchesInBatches() {
+        SearchAnalyticsRepository repository = mock(SearchAnalyticsRepository.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // Long interval so only the explicit flush writes
+        SearchAnalytics analytics = new SearchAnalytics(repository, mock(PlatformTransactionManager.class), 64, 2,
+                Duration.ofHours(1), registry);
+        List<SearchHit> hits = List.of(new SearchHit(new FaqItem("en-1", Category.ARRIVAL, "en", "q", "a", ""), 0.9));
+
+        for (int i = 0; i < 5; i++) {
+            analytics.record("en", "en:codice fiscale", hits, 1000);
+        }
+
+        assertEquals(5, analytics.flush());
+        verify(repository, times(3)).insertEvents(anyList());
+        verify(repository, times(3)).addHourly(anyList());
+        assertEquals(5, registry.get("bot.analytics.events").tag("outcome", "written").functionCounter().count());
+        assertEquals(0, analytics.flush());
+        analytics.shutdown();
+    }
+
+    @Test
+    void createsTheSchemaAtTheFirstFlushAndRetriesUntilItSucceeds() {
+        SearchAnalyticsRepository repository = mock(SearchAnalyticsRepository.class);
+        SearchAnalytics analytics = new SearchAnalytics(repository, mock(PlatformTransactionManager.class), 64, 10,
+                Duration.ofHours(1), new SimpleMeterRegistry());
+
+        // Nothing buffered yet, so no database work at all
+        assertEquals(0, analytics.flush());
+        verify(repository, never()).createSchema();
+
+        analytics.record("en", "en:visa", List.of(), 1000);
+        doThrow(new IllegalStateException("database down")).doNothing().when(repository).createSchema();
+        assertThrows(IllegalStateException.class, analytics::flush);
+        verify(repository, never()).insertEvents(anyList());
+
+        assertEquals(1, analytics.flush());
+        analytics.record("en", "en:visa", List.of(), 1000);
+        assertEquals(1, analytics.flush());
+        verify(repository, times(2)).createSchema();
+        analytics.shutdown();
+    }
+
+    @Test
+    void writesEventsAndCountersInOneTransaction() {
+        SearchAnalyticsRepository repository = mock(SearchAnalyticsRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SearchAnalytics analytics = new SearchAnalytics(repository, transactionManager, 64, 10, Duration.ofHours(1),
+                registry);
+
+        analytics.record("en", "en:visa", List.of(), 1000);
+        assertEquals(1, analytics.flush());
+        verify(transactionManager).commit(any());
+
+        // The counters fail after the events were inserted: the events go too
+        analytics.record("en", "en:visa", List.of(), 1000);
+        doThrow(new IllegalStateException("deadlock")).when(repository).addHourly(anyList());
+        assertThrows(IllegalStateException.class, analytics::flush);
+        verify(repository, times(2)).insertEvents(anyList());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        assertEquals(1, registry.get("bot.analytics.events").tag("outcome", "failed").functionCounter().count());
+        analytics.shutdown();
+    }
+}
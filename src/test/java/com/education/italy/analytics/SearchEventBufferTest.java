@@ -0,0 +1,90 @@
+package com.education.italy.analytics;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import com.education.italy.service.SearchHit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchEventBufferTest {
+
+    private static final List<SearchHit> HITS = List.of(new SearchHit(
+            new FaqItem("en-1", Category.ARRIVAL, "en", "q", "a", ""), 0.9));
+
+    @Test
+    void drainsInOrderWithTheQueryStrippedOfItsLanguage() {
+        SearchEventBuffer buffer = new SearchEventBuffer(8);
+        buffer.offer(1000, "en", "en:codice fiscale", HITS, 5000);
+        buffer.offer(2000, "ru", "ru:виза", List.of(), 7000);
+
+        List<SearchEvent> events = new ArrayList<>();
+        assertEquals(2, buffer.drain(10, events::add));
+
+        assertEquals(new SearchEvent(1000, "en", "codice fiscale", List.of("en-1"), 5000), events.get(0));
+        assertEquals(new SearchEvent(2000, "ru", "виза", List.of(), 7000), events.get(1));
+        assertTrue(events.get(1).miss());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void dropsInsteadOfBlockingWhenFull() {
+        SearchEventBuffer buffer = new SearchEventBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i, "en", "en:q" + i, HITS, 0));
+        }
+        assertFalse(buffer.offer(4, "en", "en:q4", HITS, 0));
+        assertEquals(1, buffer.dropped());
+
+        // Draining frees the slots again
+        assertEquals(2, buffer.drain(2, event -> { }));
+        assertTrue(buffer.offer(5, "en", "en:q5", HITS, 0));
+        List<Long> left = new ArrayList<>();
+        buffer.drain(10, event -> left.add(event.timestamp()));
+        assertEquals(List.of(2L, 3L, 5L), left);
+    }
+
+    @Test
+    void concurrentProducersLoseNothingThatFits() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 20_000;
+        SearchEventBuffer buffer = new SearchEventBuffer(1024);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    // Retried until there is room, so every event must come out exactly once
+                    while (!buffer.offer(base + i, "en", "en:q", HITS, 0)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }));
+        }
+
+        Set<Long> seen = new HashSet<>();
+        start.countDown();
+        while (seen.size() < producers * perProducer) {
+            buffer.drain(256, event -> assertTrue(seen.add(event.timestamp()), "duplicate " + event.timestamp()));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(producers * perProducer, seen.size());
+        assertEquals(0, buffer.drain(10, event -> { }));
+    }
+}
@@ -0,0 +1,244 @@
+package com.education.italy.bot;
+
+import com.education.italy.ItalyApplication;
+import com.education.italy.service.BotService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end replay: the whole application, polling a
+ * {@link FakeTelegramServer} and backed by an embedded Postgres, receives
+ * generated or recorded traffic at a fixed arrival rate. Reports throughput,
+ * reply-latency percentiles and errors, and fails when a percentile exceeds
+ * the stored baseline by more than its tolerance.
+ * <p>
+ * Arrivals are open-loop: updates are pushed on schedule whether or not
+ * earlier ones have been answered, and latency is measured from the
+ * scheduled arrival, so a stall shows up in the percentiles instead of
+ * slowing the load down. Run with {@code ./gradlew replay}; the
+ * {@code replay.*} system properties below tune the traffic.
+ */
+@Tag("replay")
+class BotReplayTest {
+
+    private final int chats = Integer.getInteger("replay.chats", 200);
+    private final double rate = Double.parseDouble(System.getProperty("replay.rate", "100"));
+    private final Duration duration = Duration.parse(System.getProperty("replay.duration", "PT20S"));
+    private final Duration warmup = Duration.parse(System.getProperty("replay.warmup", "PT5S"));
+    private final Duration replyTimeout = Duration.parse(System.getProperty("replay.reply-timeout", "PT10S"));
+    private final long seed = Long.getLong("replay.seed", 42);
+    private final String recorded = System.getProperty("replay.updates", "");
+    private final Path baselineFile = Path.of(System.getProperty("replay.baseline",
+            "src/test/resources/replay-baseline.properties"));
+    private final String reportFile = System.getProperty("replay.report", "");
+    private final boolean updateBaseline = Boolean.getBoolean("replay.update-baseline");
+
+    @Test
+    void replaysTrafficWithinTheLatencyBaseline() throws Exception {
+        Report report;
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start();
+             FakeTelegramServer telegram = new FakeTelegramServer(Duration.ofSeconds(1));
+             ConfigurableApplicationContext app = new SpringApplicationBuilder(ItalyApplication.class)
+                     .run(arguments(postgres, telegram))) {
+            BotService botService = app.getBean(BotService.class);
+            List<ReplayTraffic.Arrival> traffic = recorded.isBlank()
+                    ? ReplayTraffic.generate(botService.snapshot().items(), chats, rate, duration, seed)
+                    : ReplayTraffic.load(Path.of(recorded), rate, seed);
+            report = replay(telegram, traffic, app.getBean(MeterRegistry.class));
+        }
+
+        System.out.printf("Replay: %d updates at %.0f/s, %.0f replies/s, reply latency p50/p90/p99/max "
+                        + "%.1f/%.1f/%.1f/%.1f ms, %d unanswered, %d errors%n",
+                report.updates(), rate, report.throughput(), report.p50(), report.p90(), report.p99(), report.max(),
+                report.unanswered(), report.errors());
+        if (!reportFile.isBlank()) {
+            store(report.toProperties(), Path.of(reportFile), "Last replay");
+        }
+
+        Properties baseline = load(baselineFile);
+        if (updateBaseline) {
+            Map<String, Double> measured = report.percentiles();
+            measured.forEach((name, millis) -> baseline.setProperty(name + ".ms", format(millis)));
+            store(baseline, baselineFile, "Reply latency baseline for ./gradlew replay (see BotReplayTest)");
+            System.out.println("Replay baseline updated: " + baselineFile);
+            return;
+        }
+
+        double tolerance = Double.parseDouble(baseline.getProperty("tolerance", "0.25"));
+        List<String> regressions = new ArrayList<>();
+        report.percentiles().forEach((name, millis) -> {
+            String stored = baseline.getProperty(name + ".ms");
+            if (stored != null && millis > Double.parseDouble(stored) * (1 + tolerance)) {
+                regressions.add(name + " " + format(millis) + " ms > baseline " + stored + " ms + "
+                        + Math.round(tolerance * 100) + "%");
+            }
+        });
+        long maxErrors = Long.parseLong(baseline.getProperty("errors.max", "0"));
+        if (report.unanswered() + report.errors() > maxErrors) {
+            regressions.add("%d unanswered and %d errors > %d allowed".formatted(
+                    report.unanswered(), report.errors(), maxErrors));
+        }
+        assertTrue(regressions.isEmpty(), "Replay regressed: " + String.join("; ", regressions));
+    }
+
+    private String[] arguments(EmbeddedPostgres postgres, FakeTelegramServer telegram) {
+        // Command-line arguments, so they win over application.properties
+        return new String[]{
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--bot.token=replay",
+                "--bot.username=replay_bot",
+                "--bot.api-url=" + telegram.baseUrl(),
+                "--bot.mode=polling",
+                "--bot.metrics.enabled=false",
+                "--bot.sessions.capacity=" + Math.max(1000, chats * 2),
+                // The stand-in does not rate-limit, so neither does the bot
+                "--bot.outbound.global-per-second=100000",
+                "--bot.outbound.chat-per-second=1000",
+                "--bot.outbound.chat-burst=1000"};
+    }
+
+    private Report replay(FakeTelegramServer telegram, List<ReplayTraffic.Arrival> traffic, MeterRegistry registry)
+            throws InterruptedException {
+        Map<Long, Queue<long[]>> awaiting = new ConcurrentHashMap<>();
+        Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger replies = new AtomicInteger();
+        AtomicInteger unexpected = new AtomicInteger();
+        AtomicLong lastReplyAt = new AtomicLong();
+        telegram.onSend(message -> {
+            long now = System.nanoTime();
+            Queue<long[]> queue = awaiting.get(message.path("chat_id").asLong());
+            // Replies of a chat come in the order of its updates; {due, measured}
+            long[] pending = queue == null ? null : queue.poll();
+            if (pending == null) {
+                unexpected.incrementAndGet();
+                return;
+            }
+            replies.incrementAndGet();
+            if (pending[1] == 1) {
+                latencies.add(now - pending[0]);
+            }
+            lastReplyAt.accumulateAndGet(now, Math::max);
+        });
+
+        long errorsBefore = errorCount(registry);
+        long warmupNanos = warmup.toNanos();
+        long start = System.nanoTime();
+        int updateId = 0;
+        for (ReplayTraffic.Arrival arrival : traffic) {
+            long due = start + arrival.offsetNanos();
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            awaiting.computeIfAbsent(arrival.chatId(), id -> new ConcurrentLinkedQueue<>())
+                    .add(new long[]{due, arrival.offsetNanos() >= warmupNanos ? 1 : 0});
+            arrival.update().put("update_id", ++updateId);
+            telegram.pushUpdate(arrival.update().toString());
+        }
+
+        long deadline = System.nanoTime() + replyTimeout.toNanos();
+        while (replies.get() < traffic.size() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        int unanswered = awaiting.values().stream().mapToInt(Queue::size).sum();
+        long end = Math.max(lastReplyAt.get(), start + 1);
+        long[] measured = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Report(traffic.size(), replies.get() / ((end - start) / 1e9),
+                percentile(measured, 50), percentile(measured, 90), percentile(measured, 99),
+                measured.length == 0 ? 0 : measured[measured.length - 1] / 1e6,
+                unanswered, unexpected.get() + errorCount(registry) - errorsBefore);
+    }
+
+    /**
+     * Failed Telegram calls and callbacks the bot could not parse.
+     */
+    private static long errorCount(MeterRegistry registry) {
+        double errors = registry.find("bot.telegram.errors").counters().stream().mapToDouble(Counter::count).sum();
+        errors += registry.find("bot.callbacks.rejected").functionCounters().stream()
+                .mapToDouble(FunctionCounter::count).sum();
+        return (long) errors;
+    }
+
+    private static double percentile(long[] sortedNanos, int p) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        return sortedNanos[Math.min(sortedNanos.length - 1, sortedNanos.length * p / 100)] / 1e6;
+    }
+
+    // Dot decimals whatever the locale, so the files parse back
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static Properties load(Path file) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            }
+        }
+        return properties;
+    }
+
+    private static void store(Properties properties, Path file, String comment) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, comment);
+        }
+    }
+
+    private record Report(int updates, double throughput, double p50, double p90, double p99, double max,
+                          int unanswered, long errors) {
+
+        Map<String, Double> percentiles() {
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            percentiles.put("p50", p50);
+            percentiles.put("p90", p90);
+            percentiles.put("p99", p99);
+            return percentiles;
+        }
+
+        Properties toProperties() {
+            Properties properties = new Properties();
+            properties.setProperty("updates", String.valueOf(updates));
+            properties.setProperty("throughput", format(throughput));
+            percentiles().forEach((name, millis) -> properties.setProperty(name + ".ms", format(millis)));
+            properties.setProperty("max.ms", format(max));
+            properties.setProperty("unanswered", String.valueOf(unanswered));
+            properties.setProperty("errors", String.valueOf(errors));
+            return properties;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.education.italy.bot;
+
+import com.education.italy.model.Category;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CallbackRouterTest {
+
+    private final List<Object> handled = new ArrayList<>();
+    private final CallbackRouter router = CallbackRouter.builder()
+            .prefix(Callbacks.LANG, Callbacks::language, (chatId, payload) -> handled.add(payload))
+            .exact(Callbacks.MENU, chatId -> handled.add(Callbacks.MENU))
+            .prefix(Callbacks.CATEGORY, Callbacks::category, (chatId, payload) -> handled.add(payload))
+            .prefix(Callbacks.FAQ, Callbacks::faq, (chatId, payload) -> handled.add(payload))
+            .prefix(Callbacks.PAGE, Callbacks::page, (chatId, payload) -> handled.add(payload))
+            .prefix(Callbacks.CATEGORY_PAGE, Callbacks::categoryPage, (chatId, payload) -> handled.add(payload))
+            .build();
+
+    @Test
+    void decodesTypedPayloads() {
+        assertTrue(router.route(1, "LANG_EN"));
+        assertTrue(router.route(1, "MENU"));
+        assertTrue(router.route(1, "CAT_VISA"));
+        assertTrue(router.route(1, "FAQ_en-12"));
+        assertTrue(router.route(1, "PAGE_3"));
+        assertTrue(router.route(1, "PAGE_C_VISA_12"));
+
+        assertEquals(List.of(new Callbacks.Language("en"), Callbacks.MENU,
+                new Callbacks.CategoryRef(Category.VISA), new Callbacks.FaqRef("en-12"), new Callbacks.Page(3),
+                new Callbacks.CategoryPage(Category.VISA, 12)), handled);
+        assertSame(Callbacks.category("CAT_VISA", 4), Callbacks.category("CAT_VISA", 4));
+    }
+
+    @Test
+    void rejectsUnknownAndForgedData() {
+        String[] forged = {null, "", "MENUX", "MEN", "menu", "LANG_", "LANG_DE", "LANG_ENG", "CAT_", "CAT_visa",
+                "CAT_VISA_", "CAT_VIS", "FAQ_", "FAQ_../../etc", "FAQ_a b", "FAQ_" + "x".repeat(51),
+                "PAGE_", "PAGE_-1", "PAGE_x", "PAGE_" + Pages.MAX_PAGES, "PAGE_100",
+                "PAGE_C_", "PAGE_C_VISA", "PAGE_C_VISA_", "PAGE_C_VISA_-1", "PAGE_C_visa_1", "PAGE_C__1",
+                "PAGE_C_VISA_" + Pages.MAX_PAGES, "PAGE_C_TAXES_1",
+                "MENU" + "x".repeat(CallbackRouter.MAX_DATA_LENGTH), "\u0000", "Я"};
+        for (String data : forged) {
+            assertFalse(router.route(1, data), String.valueOf(data));
+        }
+        assertTrue(handled.isEmpty());
+        assertEquals(forged.length, router.rejected());
+    }
+
+    @Test
+    void prefersLongestPrefix() {
+        List<String> seen = new ArrayList<>();
+        CallbackRouter nested = CallbackRouter.builder()
+                .prefix("P_", (data, offset) -> data.substring(offset), (chatId, p) -> seen.add("short:" + p))
+                .prefix("P_X_", (data, offset) -> data.substring(offset), (chatId, p) -> seen.add("long:" + p))
+                .build();
+
+        nested.route(1, "P_X_1");
+        nested.route(1, "P_Y");
+
+        assertEquals(List.of("long:1", "short:Y"), seen);
+    }
+}
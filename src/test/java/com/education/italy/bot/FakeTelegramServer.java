@@ -0,0 +1,133 @@
+package com.education.italy.bot;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Local stand-in for the Telegram Bot API. Serves long-polled
+ * {@code getUpdates} from updates pushed by the test, records every
+ * {@code sendMessage} (optionally reporting it to a listener as it
+ * arrives), and answers any other method with {@code true}.
+ * Point a bot at it with {@code DefaultBotOptions.setBaseUrl(baseUrl())}.
+ */
+final class FakeTelegramServer implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final BlockingQueue<String> pendingUpdates = new LinkedBlockingQueue<>();
+    // Not copy-on-write: a replay sends thousands of messages
+    private final List<JsonNode> sentMessages = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger messageIds = new AtomicInteger();
+    private volatile Consumer<JsonNode> sendListener = message -> { };
+    private final Duration pollHold;
+    private final HttpServer server;
+
+    /**
+     * @param pollHold how long an empty getUpdates is held open, like Telegram's long poll timeout
+     */
+    FakeTelegramServer(Duration pollHold) throws IOException {
+        this.pollHold = pollHold;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+    }
+
+    /**
+     * Queues a raw update JSON object for the next getUpdates.
+     */
+    void pushUpdate(String updateJson) {
+        pendingUpdates.add(updateJson);
+    }
+
+    List<JsonNode> sentMessages() {
+        return sentMessages;
+    }
+
+    /**
+     * Called with every sendMessage body, on the request's thread, before it is answered.
+     */
+    void onSend(Consumer<JsonNode> listener) {
+        this.sendListener = listener;
+    }
+
+    static String textUpdate(int updateId, long chatId, String text) {
+        return """
+                {"update_id":%d,"message":{"message_id":%d,"date":0,\
+                "chat":{"id":%d,"type":"private"},"text":"%s"}}""".formatted(updateId, updateId, chatId, text);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String method = path.substring(path.lastIndexOf('/') + 1);
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+            String result = switch (method) {
+                case "getUpdates" -> pollUpdates();
+                case "sendMessage" -> recordMessage(body);
+                default -> "true";
+            };
+            byte[] response = ("{\"ok\":true,\"result\":" + result + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        }
+    }
+
+    private String pollUpdates() {
+        List<String> batch = new ArrayList<>();
+        try {
+            String first = pendingUpdates.poll(pollHold.toMillis(), TimeUnit.MILLISECONDS);
+            if (first != null) {
+                batch.add(first);
+                pendingUpdates.drainTo(batch, 99);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "[" + String.join(",", batch) + "]";
+    }
+
+    private String recordMessage(byte[] body) throws IOException {
+        JsonNode message = objectMapper.readTree(body);
+        sentMessages.add(message);
+        sendListener.accept(message);
+        return """
+                {"message_id":%d,"date":0,"chat":{"id":%s,"type":"private"},"text":"ok"}"""
+                .formatted(messageIds.incrementAndGet(), message.path("chat_id").asText("0"));
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
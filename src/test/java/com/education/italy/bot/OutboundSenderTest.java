@@ -0,0 +1,173 @@
+package com.education.italy.bot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutboundSenderTest {
+
+    @Test
+    void retriesTransientFailures() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OutboundSender sender = new OutboundSender(100, 100, 10, 100, 3, Duration.ofMillis(10), Duration.ofSeconds(5),
+                registry);
+        AtomicInteger calls = new AtomicInteger();
+        sender.start(message -> calls.incrementAndGet() < 3
+                ? CompletableFuture.failedFuture(new IOException("connection reset"))
+                : CompletableFuture.completedFuture(new Message()));
+
+        sender.send(message(1));
+        sender.shutdown();
+
+        OutboundSender.Stats stats = sender.stats();
+        assertEquals(3, calls.get());
+        assertEquals(1, stats.sent());
+        assertEquals(2, stats.retried());
+        assertEquals(0, stats.dropped());
+        assertEquals(2, registry.get("bot.telegram.errors").tag("kind", "network").counter().count());
+        assertEquals(1, registry.get("bot.telegram.send").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void limitsSendsPerChat() {
+        // 10 msg/s per chat, bursts of 2: five messages need at least 0.3 s
+        OutboundSender sender = new OutboundSender(1000, 10, 2, 100, 1, Duration.ofMillis(10), Duration.ofSeconds(5),
+                new SimpleMeterRegistry());
+        List<Long> sentAt = new CopyOnWriteArrayList<>();
+        sender.start(message -> {
+            sentAt.add(System.nanoTime());
+            return CompletableFuture.completedFuture(new Message());
+        });
+
+        for (int i = 0; i < 5; i++) {
+            sender.send(message(7));
+        }
+        sender.shutdown();
+
+        assertEquals(5, sentAt.size());
+        long elapsedMillis = (sentAt.get(4) - sentAt.get(0)) / 1_000_000;
+        assertTrue(elapsedMillis >= 250, "per-chat limit not applied: " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void rateLimitHoldsTheWholeChatInOrder() {
+        OutboundSender sender = new OutboundSender(1000, 1000, 10, 100, 3, Duration.ofMillis(10),
+                Duration.ofSeconds(5), new SimpleMeterRegistry());
+        List<String> attempts = new CopyOnWriteArrayList<>();
+        List<Long> delivered = new CopyOnWriteArrayList<>();
+        long start = System.nanoTime();
+        sender.start(message -> {
+            attempts.add(message.getText());
+            if (attempts.size() == 1) {
+                // retry_after missing: 1 s
+                return CompletableFuture.failedFuture(tooManyRequests());
+            }
+            delivered.add(System.nanoTime() - start);
+            return CompletableFuture.completedFuture(new Message());
+        });
+
+        sender.send(message(7, "1"));
+        sender.send(message(7, "2"));
+        sender.send(message(7, "3"));
+        sender.shutdown();
+
+        assertEquals(List.of("1", "1", "2", "3"), attempts);
+        assertTrue(delivered.get(0) >= 900_000_000L, "chat not paused: " + delivered);
+        assertEquals(0, sender.stats().dropped());
+    }
+
+    @Test
+    void rateLimitCountsTowardMaxAttempts() {
+        OutboundSender sender = new OutboundSender(1000, 1000, 10, 100, 2, Duration.ofMillis(10),
+                Duration.ofSeconds(5), new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+        sender.start(message -> {
+            calls.incrementAndGet();
+            return CompletableFuture.failedFuture(tooManyRequests());
+        });
+
+        sender.send(message(7));
+        sender.shutdown();
+
+        assertEquals(2, calls.get());
+        assertEquals(1, sender.stats().retried());
+        assertEquals(1, sender.stats().dropped());
+    }
+
+    @Test
+    void sendsOneMessageOfAChatAtATime() throws InterruptedException {
+        OutboundSender sender = new OutboundSender(1000, 1000, 10, 100, 3, Duration.ofMillis(10),
+                Duration.ofSeconds(5), new SimpleMeterRegistry());
+        LinkedBlockingQueue<Call> calls = new LinkedBlockingQueue<>();
+        List<String> attempts = new CopyOnWriteArrayList<>();
+        sender.start(message -> {
+            CompletableFuture<Message> future = new CompletableFuture<>();
+            attempts.add(message.getChatId() + ":" + message.getText());
+            calls.add(new Call(message.getText(), future));
+            return future;
+        });
+
+        sender.send(message(7, "1"));
+        sender.send(message(7, "2"));
+        Call first = calls.poll(5, TimeUnit.SECONDS);
+        assertEquals("1", first.text());
+        // "2" waits for "1" to complete; other chats do not
+        sender.send(message(8, "other"));
+        Call other = calls.poll(5, TimeUnit.SECONDS);
+        assertEquals("other", other.text());
+        other.future().complete(new Message());
+        assertNull(calls.poll(200, TimeUnit.MILLISECONDS));
+
+        // A failure while "2" is waiting: the retry still goes first
+        first.future().completeExceptionally(new IOException("connection reset"));
+        Call retry = calls.poll(5, TimeUnit.SECONDS);
+        assertEquals("1", retry.text());
+        assertNull(calls.poll(200, TimeUnit.MILLISECONDS));
+        retry.future().complete(new Message());
+        Call second = calls.poll(5, TimeUnit.SECONDS);
+        assertEquals("2", second.text());
+        second.future().complete(new Message());
+        sender.shutdown();
+
+        assertEquals(List.of("7:1", "8:other", "7:1", "7:2"), attempts);
+        assertEquals(3, sender.stats().sent());
+        assertEquals(1, sender.stats().retried());
+    }
+
+    private record Call(String text, CompletableFuture<Message> future) {
+    }
+
+    private static TelegramApiRequestException tooManyRequests() {
+        TelegramApiRequestException error = mock(TelegramApiRequestException.class);
+        when(error.getErrorCode()).thenReturn(429);
+        return error;
+    }
+
+    private static SendMessage message(long chatId) {
+        return message(chatId, "hi");
+    }
+
+    private static SendMessage message(long chatId, String text) {
+        SendMessage message = new SendMessage();
+        message.setChatId(String.valueOf(chatId));
+        message.setText(text);
+        return message;
+    }
+}
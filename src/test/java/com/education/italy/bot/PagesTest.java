@@ -0,0 +1,52 @@
+package com.education.italy.bot;
+
+import com.education.italy.model.Category;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PagesTest {
+
+    @Test
+    void capsThePageCount() {
+        assertEquals(1, Pages.count(0, 6));
+        assertEquals(1, Pages.count(6, 6));
+        assertEquals(2, Pages.count(7, 6));
+        assertEquals(Pages.MAX_PAGES, Pages.count(1_000_000, 6));
+    }
+
+    @Test
+    void clampsPagesOfAShrunkList() {
+        assertEquals(0, Pages.clamp(-1, 3));
+        assertEquals(2, Pages.clamp(2, 3));
+        assertEquals(2, Pages.clamp(40, 3));
+    }
+
+    @Test
+    void linksOnlyToExistingPages() {
+        assertTrue(Pages.navigation(null, 0, 1).isEmpty());
+        assertEquals(List.of("PAGE_1"), callbacks(Pages.navigation(null, 0, 3)));
+        assertEquals(List.of("PAGE_0", "PAGE_2"), callbacks(Pages.navigation(null, 1, 3)));
+        assertEquals(List.of("PAGE_1"), callbacks(Pages.navigation(null, 2, 3)));
+        assertEquals("Topics (2/3)", Pages.title("Topics", 1, 3));
+        assertEquals("Topics", Pages.title("Topics", 0, 1));
+    }
+
+    @Test
+    void categoryPagesNameTheirCategory() {
+        assertEquals(List.of("PAGE_C_VISA_0", "PAGE_C_VISA_2"), callbacks(Pages.navigation(Category.VISA, 1, 3)));
+        assertEquals(List.of("PAGE_C_ARRIVAL_1"), callbacks(Pages.navigation(Category.ARRIVAL, 0, 2)));
+        for (String data : callbacks(Pages.navigation(Category.SCHOLARSHIPS, 1, 3))) {
+            Callbacks.CategoryPage page = Callbacks.categoryPage(data, Callbacks.CATEGORY_PAGE.length());
+            assertEquals(Category.SCHOLARSHIPS, page.category());
+        }
+    }
+
+    private static List<String> callbacks(List<InlineKeyboardButton> row) {
+        return row.stream().map(InlineKeyboardButton::getCallbackData).toList();
+    }
+}
@@ -0,0 +1,165 @@
+package com.education.italy.bot;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Update streams for {@link BotReplayTest}: generated conversations, or
+ * updates recorded from Telegram (one Update JSON object per line, e.g.
+ * webhook bodies), each arriving at a Poisson-distributed time.
+ */
+final class ReplayTraffic {
+
+    // Well clear of admin chat ids
+    private static final long FIRST_CHAT_ID = 1_000_000;
+    private static final String[] MISSES = {
+            "where can I park a bicycle overnight", "сколько стоит абонемент в спортзал", "best pizza near campus",
+            "can I bring my cat to the dormitory", "как сдать старый телефон в ремонт"};
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ReplayTraffic() {
+    }
+
+    /**
+     * An update due {@code offsetNanos} after the start of the replay.
+     * Every arrival is expected to get exactly one reply.
+     */
+    record Arrival(long offsetNanos, long chatId, ObjectNode update) {
+    }
+
+    /**
+     * Conversations of {@code chats} users over {@code duration} at
+     * {@code rate} updates per second overall. Each chat starts with /start
+     * and a language choice, then mixes topic browsing, FAQ buttons, known
+     * questions and questions the bot cannot answer.
+     */
+    static List<Arrival> generate(List<FaqItem> corpus, int chats, double rate, Duration duration, long seed) {
+        Random random = new Random(seed);
+        List<FaqItem> english = corpus.stream().filter(item -> "en".equals(item.getLang())).toList();
+        List<FaqItem> russian = corpus.stream().filter(item -> "ru".equals(item.getLang())).toList();
+        int[] steps = new int[chats];
+        String[] langs = new String[chats];
+        List<Arrival> arrivals = new ArrayList<>();
+        long end = duration.toNanos();
+        for (long at = nextGap(random, rate); at < end; at += nextGap(random, rate)) {
+            int chat = random.nextInt(chats);
+            long chatId = FIRST_CHAT_ID + chat;
+            int step = steps[chat]++;
+            ObjectNode update;
+            if (step == 0) {
+                update = message(chatId, "/start");
+            } else if (step == 1) {
+                langs[chat] = random.nextInt(10) < 7 ? "ru" : "en";
+                update = callback(chatId, Callbacks.LANG + langs[chat].toUpperCase());
+            } else {
+                update = browse(random, chatId, "ru".equals(langs[chat]) ? russian : english);
+            }
+            arrivals.add(new Arrival(at, chatId, update));
+        }
+        return arrivals;
+    }
+
+    private static ObjectNode browse(Random random, long chatId, List<FaqItem> items) {
+        int roll = random.nextInt(100);
+        if (items.isEmpty() || roll < 15) {
+            return callback(chatId, Callbacks.TOPICS);
+        }
+        FaqItem item = items.get(random.nextInt(items.size()));
+        if (roll < 35) {
+            Category[] categories = Category.values();
+            return callback(chatId, Callbacks.CATEGORY + categories[random.nextInt(categories.length)].name());
+        }
+        if (roll < 55) {
+            return callback(chatId, Callbacks.FAQ + item.getId());
+        }
+        if (roll < 60) {
+            return callback(chatId, Callbacks.MENU);
+        }
+        if (roll < 85) {
+            return message(chatId, item.getQuestion());
+        }
+        return message(chatId, MISSES[random.nextInt(MISSES.length)]);
+    }
+
+    /**
+     * Recorded updates in file order at {@code rate} per second. Updates
+     * the bot does not reply to (no text, the "Ask" button) are skipped, so
+     * every arrival can be matched with its reply.
+     */
+    static List<Arrival> load(Path file, double rate, long seed) throws IOException {
+        Random random = new Random(seed);
+        List<Arrival> arrivals = new ArrayList<>();
+        long at = 0;
+        for (String line : Files.readAllLines(file)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            ObjectNode update = (ObjectNode) MAPPER.readTree(line);
+            JsonNode message = update.path("message");
+            JsonNode callback = update.path("callback_query");
+            long chatId;
+            if (message.hasNonNull("text")) {
+                chatId = message.path("chat").path("id").asLong();
+            } else if (callback.hasNonNull("data") && !Callbacks.ASK.equals(callback.path("data").asText())) {
+                chatId = callback.path("message").path("chat").path("id").asLong();
+            } else {
+                continue;
+            }
+            at += nextGap(random, rate);
+            arrivals.add(new Arrival(at, chatId, update));
+        }
+        return arrivals;
+    }
+
+    private static long nextGap(Random random, double rate) {
+        return (long) (-Math.log(1 - random.nextDouble()) / rate * 1e9);
+    }
+
+    static ObjectNode message(long chatId, String text) {
+        ObjectNode message = MAPPER.createObjectNode()
+                .put("message_id", 1)
+                .put("date", 0)
+                .put("text", text);
+        message.set("chat", chat(chatId));
+        message.set("from", user(chatId));
+        ObjectNode update = MAPPER.createObjectNode();
+        update.set("message", message);
+        return update;
+    }
+
+    static ObjectNode callback(long chatId, String data) {
+        ObjectNode message = MAPPER.createObjectNode()
+                .put("message_id", 1)
+                .put("date", 0);
+        message.set("chat", chat(chatId));
+        ObjectNode query = MAPPER.createObjectNode()
+                .put("id", String.valueOf(chatId))
+                .put("chat_instance", String.valueOf(chatId))
+                .put("data", data);
+        query.set("from", user(chatId));
+        query.set("message", message);
+        ObjectNode update = MAPPER.createObjectNode();
+        update.set("callback_query", query);
+        return update;
+    }
+
+    private static ObjectNode chat(long chatId) {
+        return MAPPER.createObjectNode().put("id", chatId).put("type", "private");
+    }
+
+    private static ObjectNode user(long chatId) {
+        return MAPPER.createObjectNode().put("id", chatId).put("is_bot", false).put("first_name", "replay");
+    }
+}
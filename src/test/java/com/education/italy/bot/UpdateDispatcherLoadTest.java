@@ -0,0 +1,131 @@
+package com.education.italy.bot;
+
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays synthetic updates through the dispatcher against a stub handler
+ * that simulates a blocking DB call plus a Telegram send.
+ */
+class UpdateDispatcherLoadTest {
+
+    private static final int UPDATES_PER_CHAT = 20;
+    private static final long STUB_LATENCY_MILLIS = 5;
+
+    @Test
+    void keepsPerChatOrderAndRunsChatsInParallel() throws Exception {
+        int single = replay(1);
+        int eight = replay(8);
+        int many = replay(64);
+
+        System.out.printf("Dispatcher peak concurrency: 1 chat %d, 8 chats %d, 64 chats %d%n", single, eight, many);
+        assertEquals(1, single);
+        assertEquals(8, eight, "8 chats should run in parallel");
+        assertEquals(64, many, "64 chats should run in parallel");
+    }
+
+    @Test
+    void blocksWhenQueueIsFull() throws Exception {
+        UpdateDispatcher dispatcher = new UpdateDispatcher(2, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.dispatch(update(1, 1), u -> await(release));
+        dispatcher.dispatch(update(2, 1), u -> await(release));
+
+        Thread producer = Thread.ofVirtual().start(() -> dispatcher.dispatch(update(3, 1), u -> { }));
+        producer.join(200);
+        assertTrue(producer.isAlive(), "third dispatch should wait for capacity");
+
+        release.countDown();
+        producer.join(5000);
+        dispatcher.shutdown();
+        assertEquals(0, dispatcher.inFlight());
+    }
+
+    /**
+     * Returns the peak number of handlers running at once. The first update
+     * of every chat waits until all chats have started one, so the peak
+     * reaches the chat count exactly when chats overlap, whatever the
+     * machine's speed.
+     */
+    private int replay(int chats) throws InterruptedException {
+        UpdateDispatcher dispatcher = new UpdateDispatcher(1000, Duration.ofSeconds(30));
+        Map<Long, List<Integer>> seen = new ConcurrentHashMap<>();
+        AtomicInteger handled = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch allStarted = new CountDownLatch(chats);
+
+        List<Update> updates = new ArrayList<>();
+        for (int seq = 0; seq < UPDATES_PER_CHAT; seq++) {
+            for (long chatId = 1; chatId <= chats; chatId++) {
+                updates.add(update(chatId, seq));
+            }
+        }
+
+        for (Update update : updates) {
+            dispatcher.dispatch(update, u -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                int seq = Integer.parseInt(u.getMessage().getText());
+                if (seq == 0) {
+                    allStarted.countDown();
+                    await(allStarted);
+                }
+                sleep(STUB_LATENCY_MILLIS);
+                seen.computeIfAbsent(u.getMessage().getChatId(), id -> new ArrayList<>()).add(seq);
+                handled.incrementAndGet();
+                running.decrementAndGet();
+            });
+        }
+        dispatcher.shutdown();
+
+        assertEquals(updates.size(), handled.get());
+        assertEquals(0, dispatcher.inFlight());
+        for (List<Integer> order : seen.values()) {
+            for (int i = 0; i < order.size(); i++) {
+                assertEquals(i, order.get(i), "updates of a chat must run in order");
+            }
+        }
+        return peak.get();
+    }
+
+    static Update update(long chatId, int seq) {
+        Chat chat = new Chat();
+        chat.setId(chatId);
+        Message message = new Message();
+        message.setChat(chat);
+        message.setText(String.valueOf(seq));
+        Update update = new Update();
+        update.setMessage(message);
+        return update;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.education.italy.bot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.bots.TelegramLongPollingBot;
+import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.generics.BotSession;
+import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Feeds the same updates through the webhook endpoint and through a long
+ * polling session against {@link FakeTelegramServer}, and reports the time
+ * from "Telegram has the update" to "the bot's handler got it".
+ */
+class WebhookServerTest {
+
+    private static final int UPDATES = 200;
+    private static final String SECRET = "s3cret";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void comparesDeliveryLatencyWithPolling() throws Exception {
+        long[] webhook = webhookLatencies();
+        long[] polling = pollingLatencies();
+
+        System.out.printf("Update delivery p50/p99: webhook %.2f/%.2f ms, polling %.2f/%.2f ms%n",
+                percentile(webhook, 50), percentile(webhook, 99), percentile(polling, 50), percentile(polling, 99));
+        assertEquals(UPDATES, webhook.length);
+        assertEquals(UPDATES, polling.length);
+    }
+
+    @Test
+    void rejectsWrongSecretAndMalformedBodies() throws Exception {
+        BlockingQueue<Update> received = new LinkedBlockingQueue<>();
+        WebhookServer server = new WebhookServer(new ObjectMapper(), received::add, 0, "/telegram", SECRET);
+        server.start();
+        try {
+            String update = FakeTelegramServer.textUpdate(1, 7, "hi");
+            assertEquals(401, post(server, update, "wrong").statusCode());
+            assertEquals(400, post(server, "{not json", SECRET).statusCode());
+            assertEquals(200, post(server, update, SECRET).statusCode());
+            assertEquals(7L, received.poll(5, TimeUnit.SECONDS).getMessage().getChatId());
+            assertEquals(0, received.size());
+        } finally {
+            server.stop();
+        }
+    }
+
+    private long[] webhookLatencies() throws Exception {
+        BlockingQueue<Long> receivedAt = new LinkedBlockingQueue<>();
+        WebhookServer server = new WebhookServer(new ObjectMapper(), u -> receivedAt.add(System.nanoTime()),
+                0, "/telegram", SECRET);
+        server.start();
+        try {
+            long[] latencies = new long[UPDATES];
+            for (int i = 0; i < UPDATES; i++) {
+                long start = System.nanoTime();
+                post(server, FakeTelegramServer.textUpdate(i + 1, 7, "hi"), SECRET);
+                latencies[i] = awaitNext(receivedAt) - start;
+            }
+            return latencies;
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static long[] pollingLatencies() throws Exception {
+        BlockingQueue<Long> receivedAt = new LinkedBlockingQueue<>();
+        try (FakeTelegramServer telegram = new FakeTelegramServer(Duration.ofSeconds(1))) {
+            DefaultBotOptions options = new DefaultBotOptions();
+            options.setBaseUrl(telegram.baseUrl());
+            BotSession session = new TelegramBotsApi(DefaultBotSession.class)
+                    .registerBot(new PollingBot(options, u -> receivedAt.add(System.nanoTime())));
+            try {
+                long[] latencies = new long[UPDATES];
+                for (int i = 0; i < UPDATES; i++) {
+                    long start = System.nanoTime();
+                    telegram.pushUpdate(FakeTelegramServer.textUpdate(i + 1, 7, "hi"));
+                    latencies[i] = awaitNext(receivedAt) - start;
+                }
+                return latencies;
+            } finally {
+                session.stop();
+            }
+        }
+    }
+
+    private HttpResponse<Void> post(WebhookServer server, String body, String secret) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + "/telegram"))
+                .header(WebhookServer.SECRET_HEADER, secret)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private static long awaitNext(BlockingQueue<Long> receivedAt) throws InterruptedException {
+        Long at = receivedAt.poll(10, TimeUnit.SECONDS);
+        assertNotNull(at, "update not delivered");
+        return at;
+    }
+
+    private static double percentile(long[] nanos, int p) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * p / 100)] / 1e6;
+    }
+
+    private static final class PollingBot extends TelegramLongPollingBot {
+
+        private final Consumer<Update> sink;
+
+        PollingBot(DefaultBotOptions options, Consumer<Update> sink) {
+            super(options);
+            this.sink = sink;
+        }
+
+        @Override
+        public String getBotUsername() {
+            return "test_bot";
+        }
+
+        @Override
+        public String getBotToken() {
+            return "123:test";
+        }
+
+        @Override
+        public void onUpdateReceived(Update update) {
+            sink.accept(update);
+        }
+    }
+}
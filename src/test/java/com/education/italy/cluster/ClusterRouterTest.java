@@ -0,0 +1,111 @@
+package com.education.italy.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Three routers wired together in memory, with updates posted to random
+ * nodes, redelivered, and an owner that is briefly unreachable.
+ */
+class ClusterRouterTest {
+
+    private static final int NODES = 3;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Integer, AtomicInteger> handledById = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> handlerOfChat = new ConcurrentHashMap<>();
+    private final List<ClusterRouter> routers = new ArrayList<>();
+    private volatile int unreachableNode = -1;
+
+    ClusterRouterTest() {
+        for (int node = 0; node < NODES; node++) {
+            int self = node;
+            routers.add(new ClusterRouter(new ChatPartitioner(node, NODES), new UpdateDeduplicator(1000),
+                    (target, body) -> target != unreachableNode && routers.get(target).accept(parse(body), body, true),
+                    update -> {
+                        handledById.computeIfAbsent(update.getUpdateId(), id -> new AtomicInteger()).incrementAndGet();
+                        Integer previous = handlerOfChat.putIfAbsent(update.getMessage().getChatId(), self);
+                        assertTrue(previous == null || previous == self, "chat moved between nodes");
+                    }));
+        }
+    }
+
+    @Test
+    void handlesEachUpdateExactlyOnce() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int updates = 3000;
+        for (int id = 1; id <= updates; id++) {
+            byte[] body = body(id, random.nextLong(1, 500));
+            // Telegram retries until some node answers 2xx
+            while (!routers.get(random.nextInt(NODES)).accept(parse(body), body, false)) {
+                unreachableNode = -1;
+            }
+            if (id % 10 == 0) {
+                // Redelivery, e.g. the first answer timed out on Telegram's side
+                while (!routers.get(random.nextInt(NODES)).accept(parse(body), body, false)) {
+                    unreachableNode = -1;
+                }
+            }
+            if (id % 97 == 0) {
+                unreachableNode = random.nextInt(NODES);
+            }
+        }
+
+        assertEquals(updates, handledById.size());
+        handledById.forEach((id, count) -> assertEquals(1, count.get(), "update " + id));
+        long duplicates = routers.stream().mapToLong(r -> r.stats().duplicates()).sum();
+        assertEquals(updates / 10, duplicates);
+    }
+
+    @Test
+    void spreadsChatsOverAllNodes() {
+        int[] perNode = new int[NODES];
+        ChatPartitioner partitioner = new ChatPartitioner(0, NODES);
+        for (long chatId = 1; chatId <= 30_000; chatId++) {
+            perNode[partitioner.owner(chatId)]++;
+        }
+        for (int count : perNode) {
+            assertTrue(Math.abs(count - 10_000) < 500, "unbalanced partitions: " + count);
+        }
+    }
+
+    @Test
+    void dedupWindowForgetsOldIds() {
+        UpdateDeduplicator deduplicator = new UpdateDeduplicator(2);
+        assertTrue(deduplicator.firstSeen(1));
+        assertTrue(deduplicator.firstSeen(2));
+        assertFalse(deduplicator.firstSeen(1));
+        assertTrue(deduplicator.firstSeen(3));
+        assertTrue(deduplicator.firstSeen(1));
+    }
+
+    private static byte[] body(int updateId, long chatId) {
+        return """
+                {"update_id":%d,"message":{"message_id":%d,"date":0,\
+                "chat":{"id":%d,"type":"private"},"text":"hi"}}"""
+                .formatted(updateId, updateId, chatId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Update parse(byte[] body) {
+        try {
+            return objectMapper.readValue(body, Update.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
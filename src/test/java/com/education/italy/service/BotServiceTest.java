@@ -0,0 +1,54 @@
+package com.education.italy.service;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BotServiceTest {
+
+    // "dsu" is a substring of en-3's question, "dsu?" is not
+    private static final List<FaqItem> ITEMS = List.of(
+            new FaqItem("en-1", Category.SCHOLARSHIPS, "en", "What is DSU?", "...", "scholarship"),
+            new FaqItem("en-2", Category.SCHOLARSHIPS, "en", "When is the DSU grant paid?", "...", "dsu,grant"),
+            new FaqItem("en-3", Category.SCHOLARSHIPS, "en", "How are DSUs paid out?", "...", "payment"));
+
+    @Test
+    void questionsSharingACacheKeyGetTheSameHits() {
+        BotService uncached = botService(0);
+        BotService cached = botService(100);
+
+        List<String> expected = hits(uncached.search("dsu", "en"));
+        assertEquals(3, expected.size());
+        for (String query : List.of("dsu?", "DSU", "  dsu?!")) {
+            assertEquals(expected, hits(uncached.search(query, "en")), query);
+        }
+        // Whichever spelling fills the entry, the other one is served the same hits
+        assertEquals(expected, hits(cached.search("dsu?", "en")));
+        assertEquals(expected, hits(cached.search("dsu", "en")));
+        assertEquals(1, cached.resultCacheStats().hits());
+    }
+
+    private static List<String> hits(List<SearchHit> hits) {
+        return hits.stream().map(hit -> hit.item().getId() + "=" + hit.score()).toList();
+    }
+
+    private static BotService botService(int cacheSize) {
+        // Serves the items as if they were stored, without a database
+        FaqContentSync stored = new FaqContentSync(null, null) {
+            @Override
+            public List<FaqItem> storedItems() {
+                return ITEMS;
+            }
+        };
+        BotService botService = new BotService(null, stored, event -> { }, new InMemorySearchEngine(),
+                Optional.empty(), new SimpleMeterRegistry(), cacheSize);
+        botService.refreshFromDatabase();
+        return botService;
+    }
+}
@@ -0,0 +1,32 @@
+package com.education.italy.service;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CategoryListingsTest {
+
+    @Test
+    void keepsTheSourceOrderAndTruncatesLabels() {
+        CategoryListings listings = CategoryListings.build(List.of(
+                new FaqItem("en-10", Category.VISA, "en", "How do I renew my permesso di soggiorno?", "...", ""),
+                new FaqItem("en-2", Category.VISA, "en", "Do I need a visa?", "...", ""),
+                new FaqItem("9f2c", Category.VISA, "en", "Where is the questura?", "...", ""),
+                new FaqItem("ru-1", Category.VISA, "ru", "Нужна ли виза?", "...", "")));
+
+        assertEquals(List.of(
+                        new CategoryListings.Entry("en-10", "How do I renew my permesso di ..."),
+                        new CategoryListings.Entry("en-2", "Do I need a visa?"),
+                        new CategoryListings.Entry("9f2c", "Where is the questura?")),
+                listings.get(Category.VISA, "en"));
+        assertEquals(List.of("ru-1"), listings.get(Category.VISA, "ru").stream()
+                .map(CategoryListings.Entry::faqId).toList());
+        assertTrue(listings.get(Category.ARRIVAL, "en").isEmpty());
+        assertTrue(listings.get(Category.VISA, "it").isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+package com.education.italy.service;
+
+import com.education.italy.model.Category;
+import com.education.italy.service.ChatSessionStore.Screen;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatSessionStoreTest {
+
+    @Test
+    void keepsScreenAndResultsPerChat() {
+        ChatSessionStore store = new ChatSessionStore(100, Duration.ofMinutes(5));
+        store.setLanguage(1L, "en");
+        store.setScreen(1L, Screen.CATEGORY, Category.VISA, 2);
+        store.setResults(2L, 7, new int[]{4, 8, 15}, 3);
+        store.setScreen(2L, Screen.SUGGESTIONS, null, 0);
+
+        ChatSessionStore.Session first = store.get(1L);
+        assertEquals("en", first.language());
+        assertEquals(Screen.CATEGORY, first.screen());
+        assertEquals(Category.VISA, first.category());
+        assertEquals(2, first.page());
+
+        ChatSessionStore.Session second = store.get(2L);
+        assertNull(second.language());
+        assertEquals(Screen.SUGGESTIONS, second.screen());
+        assertEquals(7, second.generation());
+        assertArrayEquals(new int[]{4, 8, 15}, second.results());
+
+        store.invalidate(1L);
+        assertNull(store.get(1L));
+        assertNull(store.language(3L));
+    }
+
+    @Test
+    void staysConsistentWithAMapUnderRandomChanges() {
+        ChatSessionStore store = new ChatSessionStore(16 * 256, Duration.ofMinutes(5));
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long chatId = random.nextInt(2000);
+            if (random.nextInt(4) == 0) {
+                store.invalidate(chatId);
+                expected.remove(chatId);
+            } else {
+                String lang = random.nextBoolean() ? "ru" : "en";
+                store.setLanguage(chatId, lang);
+                expected.put(chatId, lang);
+            }
+        }
+        for (long chatId = 0; chatId < 2000; chatId++) {
+            assertEquals(expected.get(chatId), store.language(chatId), "chat " + chatId);
+        }
+        assertEquals(expected.size(), store.stats().size());
+    }
+
+    @Test
+    void evictsWhenFull() {
+        ChatSessionStore store = new ChatSessionStore(1600, Duration.ofMinutes(5));
+        for (long chatId = 1; chatId <= 10_000; chatId++) {
+            store.setLanguage(chatId, "ru");
+        }
+
+        ChatSessionStore.Stats stats = store.stats();
+        assertTrue(stats.size() <= stats.capacity());
+        assertEquals(10_000 - stats.size(), stats.evictions());
+        assertEquals("ru", store.language(10_000L));
+    }
+
+    @Test
+    void millionChatsDoNotGrowTheHeap() {
+        ChatSessionStore store = new ChatSessionStore(1_000_000, Duration.ofMinutes(5));
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (long chatId = 1; chatId <= 1_000_000; chatId++) {
+            store.setLanguage(chatId, chatId % 2 == 0 ? "ru" : "en");
+            store.setScreen(chatId, Screen.MAIN_MENU, null, 0);
+        }
+        for (long chatId = 1; chatId <= 1_000_000; chatId++) {
+            store.language(chatId);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // Everything lives in the preallocated records; a map of objects would need ~100 MB here
+        assertTrue(allocated < 1_000_000, "allocated " + allocated + " bytes");
+        assertEquals("en", store.language(999_999L));
+        assertTrue(store.stats().size() > 900_000);
+    }
+}
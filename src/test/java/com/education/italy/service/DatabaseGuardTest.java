@@ -0,0 +1,216 @@
+package com.education.italy.service;
+
+import com.education.italy.repository.UserRepository;
+import com.education.italy.repository.UserWriteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class DatabaseGuardTest {
+
+    private final StubDataSource database = new StubDataSource();
+    private final UserWriteRepository writeRepository = new UserWriteRepository(new JdbcTemplate(database.proxy()));
+
+    @Test
+    void slowDatabaseCostsAtMostTheDeadline() {
+        database.latencyMillis = 2000;
+        DatabaseGuard guard = guard(5, Duration.ofHours(1));
+        UserService service = userService(guard);
+
+        long start = System.nanoTime();
+        service.registerUser(1);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 1000, "waited " + elapsedMillis + " ms for a stalled database");
+        assertEquals("ru", service.getUserLanguage(1));
+        assertEquals(1, service.pendingWrites());
+        service.shutdown();
+        guard.shutdown();
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndSkipsTheDatabase() {
+        database.down = true;
+        DatabaseGuard guard = guard(3, Duration.ofHours(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(guard.call(() -> writeRepository.register(1, "ru", LocalDateTime.now()), () -> null));
+        }
+        assertEquals(DatabaseGuard.State.OPEN, guard.state());
+        assertEquals(3, database.connections.get());
+
+        long start = System.nanoTime();
+        assertEquals("memory", guard.call(() -> writeRepository.register(1, "ru", LocalDateTime.now()),
+                () -> "memory"));
+        assertTrue(System.nanoTime() - start < 50_000_000, "open breaker still waited for the database");
+        assertEquals(3, database.connections.get());
+        guard.shutdown();
+    }
+
+    @Test
+    void replaysQueuedWritesOnceTheDatabaseRecovers() throws InterruptedException {
+        database.down = true;
+        DatabaseGuard guard = guard(1, Duration.ofMillis(100));
+        UserService service = userService(guard);
+
+        service.registerUser(1);
+        service.updateUserLanguage(2, "en");
+        assertEquals(2, service.pendingWrites());
+        assertEquals(DatabaseGuard.State.OPEN, guard.state());
+
+        database.down = false;
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (service.pendingWrites() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(0, service.pendingWrites());
+        assertEquals(DatabaseGuard.State.CLOSED, guard.state());
+        assertTrue(database.executed.stream().anyMatch(sql -> sql.contains("DO NOTHING")), "registration not replayed");
+        assertTrue(database.executed.stream().anyMatch(sql -> sql.contains("EXCLUDED.language")),
+                "language change not replayed");
+        service.shutdown();
+        guard.shutdown();
+    }
+
+    @Test
+    void backgroundFlushWaitsForASlowBatchInsteadOfAbandoningIt() {
+        database.latencyMillis = 400;
+        DatabaseGuard guard = guard(5, Duration.ofHours(1));
+        // Long write-behind so only the flush on shutdown writes
+        UserService service = new UserService(mock(UserRepository.class), writeRepository, guard, event -> { }, 100,
+                Duration.ofMinutes(1), Duration.ofHours(1));
+
+        service.updateUserLanguage(1, "en");
+        service.shutdown();
+
+        assertEquals(0, service.pendingWrites());
+        assertTrue(database.executed.stream().anyMatch(sql -> sql.contains("EXCLUDED.language")));
+        assertEquals(DatabaseGuard.State.CLOSED, guard.state());
+        guard.shutdown();
+    }
+
+    private static DatabaseGuard guard(int failures, Duration openFor) {
+        return new DatabaseGuard(Duration.ofMillis(200), failures, openFor, new SimpleMeterRegistry());
+    }
+
+    private UserService userService(DatabaseGuard guard) {
+        return new UserService(mock(UserRepository.class), writeRepository, guard, event -> { }, 100,
+                Duration.ofMinutes(1), Duration.ZERO);
+    }
+
+    /**
+     * A JDBC driver that is slow, down or accepting every statement, and
+     * answers queries with a single "ru" row.
+     */
+    private static final class StubDataSource {
+
+        volatile long latencyMillis;
+        volatile boolean down;
+        final AtomicInteger connections = new AtomicInteger();
+        final List<String> executed = new CopyOnWriteArrayList<>();
+
+        DataSource proxy() {
+            return stub(DataSource.class, (method, args) -> {
+                if (!method.equals("getConnection")) {
+                    return null;
+                }
+                connections.incrementAndGet();
+                Thread.sleep(latencyMillis);
+                if (down) {
+                    throw new SQLTransientConnectionException("connection refused");
+                }
+                return connection();
+            });
+        }
+
+        private Connection connection() {
+            Connection[] connection = new Connection[1];
+            connection[0] = stub(Connection.class, (method, args) -> switch (method) {
+                case "prepareStatement" -> statement(connection[0], (String) args[0]);
+                case "getMetaData" -> stub(DatabaseMetaData.class,
+                        (m, a) -> m.equals("supportsBatchUpdates") ? Boolean.TRUE : null);
+                case "getAutoCommit" -> Boolean.TRUE;
+                default -> null;
+            });
+            return connection[0];
+        }
+
+        private PreparedStatement statement(Connection connection, String sql) {
+            AtomicInteger batched = new AtomicInteger();
+            return stub(PreparedStatement.class, (method, args) -> switch (method) {
+                case "getConnection" -> connection;
+                case "addBatch" -> {
+                    batched.incrementAndGet();
+                    yield null;
+                }
+                case "executeBatch" -> {
+                    executed.add(sql);
+                    yield new int[batched.getAndSet(0)];
+                }
+                case "executeUpdate" -> {
+                    executed.add(sql);
+                    yield 1;
+                }
+                case "executeQuery" -> {
+                    executed.add(sql);
+                    yield singleRow();
+                }
+                default -> null;
+            });
+        }
+
+        private static ResultSet singleRow() {
+            AtomicInteger row = new AtomicInteger();
+            return stub(ResultSet.class, (method, args) -> switch (method) {
+                case "next" -> row.incrementAndGet() == 1;
+                case "getMetaData" -> stub(ResultSetMetaData.class,
+                        (m, a) -> m.equals("getColumnCount") ? 1 : null);
+                case "getString", "getObject" -> "ru";
+                default -> null;
+            });
+        }
+
+        private interface Handler {
+            Object invoke(String method, Object[] args) throws Exception;
+        }
+
+        private static <T> T stub(Class<T> type, Handler handler) {
+            Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+                Object result = handler.invoke(method.getName(), args);
+                if (result == null && method.getReturnType().isPrimitive()) {
+                    // Defaults for methods the stub does not care about (close, setLong, wasNull...)
+                    Class<?> returnType = method.getReturnType();
+                    if (returnType == boolean.class) {
+                        return false;
+                    }
+                    if (returnType == void.class) {
+                        return null;
+                    }
+                    return returnType == long.class ? 0L : 0;
+                }
+                return result;
+            });
+            return type.cast(proxy);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.education.italy.service;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import com.education.italy.repository.FaqBulkRepository;
+import com.education.italy.repository.FaqRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FaqContentSyncTest {
+
+    private final FaqRepository repository = mock(FaqRepository.class);
+    private final FaqBulkRepository bulkRepository = mock(FaqBulkRepository.class);
+    private final FaqContentSync sync = new FaqContentSync(repository, bulkRepository);
+
+    @Test
+    void writesOnlyChangedRows() {
+        FaqItem unchanged = new FaqItem("en-1", Category.VISA, "en", "Visa?", "Yes", "visa");
+        FaqItem edited = new FaqItem("en-2", Category.VISA, "en", "Bank?", "Old answer", "bank");
+        FaqItem removed = new FaqItem("en-3", Category.ARRIVAL, "en", "Gone?", "...", "");
+        when(repository.findAll()).thenReturn(List.of(unchanged, edited, removed));
+
+        FaqItem editedNew = new FaqItem("en-2", Category.VISA, "en", "Bank?", "New answer", "bank");
+        FaqItem added = new FaqItem("en-4", Category.ADMISSION, "en", "Exams?", "...", "exam");
+        FaqContentSync.SyncResult result = sync.sync(List.of(
+                new FaqItem("en-1", Category.VISA, "en", "Visa?", "Yes", "visa"), editedNew, added));
+
+        assertEquals(1, result.inserted());
+        assertEquals(1, result.updated());
+        assertEquals(1, result.deleted());
+        assertEquals(List.of("en-1", "en-2", "en-4"), result.items().stream().map(FaqItem::getId).toList());
+        verify(bulkRepository).upsertAll(List.of(added, editedNew));
+        verify(bulkRepository).deleteAll(List.of(removed));
+    }
+
+    @Test
+    void replacesLegacyUuidRowsWithStableIds() {
+        FaqItem legacy = new FaqItem("8d9f4a2c-1b7e-4c1e-9a51-0f3d2b6c7e10", Category.VISA, "en", "Visa?", "Yes", "visa");
+        when(repository.findAll()).thenReturn(List.of(legacy));
+
+        FaqItem stable = new FaqItem(FaqIds.of("1", "en"), Category.VISA, "en", "Visa?", "Yes", "visa");
+        FaqContentSync.SyncResult result = sync.sync(List.of(stable));
+
+        assertEquals(1, result.inserted());
+        assertEquals(1, result.deleted());
+        verify(bulkRepository).upsertAll(List.of(stable));
+        verify(bulkRepository).deleteAll(List.of(legacy));
+    }
+
+    @Test
+    void unchangedContentTouchesNothing() {
+        when(repository.findAll()).thenReturn(List.of(new FaqItem("en-1", Category.VISA, "en", "Visa?", "Yes", "visa")));
+
+        FaqContentSync.SyncResult result = sync.sync(List.of(new FaqItem("en-1", Category.VISA, "en", "Visa?", "Yes", "visa")));
+
+        assertFalse(result.changed());
+        verify(bulkRepository).upsertAll(List.of());
+        verify(bulkRepository).deleteAll(List.of());
+    }
+}
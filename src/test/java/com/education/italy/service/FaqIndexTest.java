@@ -0,0 +1,61 @@
+package com.education.italy.service;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FaqIndexTest {
+
+    private final FaqIndex index = FaqIndex.build(List.of(
+            new FaqItem("a", Category.ADMISSION, "en", "What documents are required for admission?", "...", "documents,diploma,dov"),
+            new FaqItem("b", Category.SCHOLARSHIPS, "en", "What is DSU scholarship?", "...", "dsu,scholarship,isee"),
+            new FaqItem("c", Category.SCHOLARSHIPS, "ru", "Что такое DSU стипендия?", "...", "dsu,стипендия,учёба")));
+
+    @Test
+    void findsSubstringsOfQuestionsAndKeywords() {
+        assertEquals(List.of("b"), ids(index.findContaining("what is DSU", "en")));
+        assertEquals(List.of("a", "b"), ids(index.findContaining("What", "en")));
+        assertEquals(List.of("a"), ids(index.findContaining("dov", "en")));
+        assertEquals(List.of("b"), ids(index.findContaining("hip", "en")));
+    }
+
+    @Test
+    void separatesLanguagesAndFoldsRussian() {
+        assertEquals(List.of("c"), ids(index.findContaining("dsu", "ru")));
+        assertEquals(List.of("c"), ids(index.findContaining("СТИПЕНДИЯ", "ru")));
+        assertEquals(List.of("c"), ids(index.findContaining("учеба", "ru")));
+        assertTrue(index.findContaining("dsu", "it").isEmpty());
+    }
+
+    @Test
+    void missesReturnEmpty() {
+        assertTrue(index.findContaining("visa", "en").isEmpty());
+        assertTrue(index.findContaining("", "en").isEmpty());
+    }
+
+    @Test
+    void ranksExactMatchesFirstAndToleratesTypos() {
+        List<SearchHit> hits = index.rank("dsu scholarship", "en", 5);
+        assertEquals("b", hits.get(0).item().getId());
+        assertEquals(1.0, hits.get(0).score(), 1e-9);
+
+        assertEquals("b", index.rank("scholarhsip", "en", 5).get(0).item().getId());
+        assertEquals("a", index.rank("documets", "en", 5).get(0).item().getId());
+        assertEquals("c", index.rank("стипендии", "ru", 5).get(0).item().getId());
+        assertTrue(index.rank("hello there", "en", 5).isEmpty());
+    }
+
+    @Test
+    void limitsHits() {
+        assertEquals(1, index.rank("what", "en", 1).size());
+    }
+
+    private static List<String> ids(List<FaqItem> items) {
+        return items.stream().map(FaqItem::getId).toList();
+    }
+}
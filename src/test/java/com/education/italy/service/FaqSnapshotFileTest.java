@@ -0,0 +1,66 @@
+package com.education.italy.service;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FaqSnapshotFileTest {
+
+    private static final List<FaqItem> ITEMS = List.of(
+            new FaqItem("1-en", Category.ADMISSION, "en", "What documents are required for admission?",
+                    "Diploma and DOV.", "documents,diploma,dov"),
+            new FaqItem("2-en", Category.SCHOLARSHIPS, "en", "What is DSU scholarship?", "A regional grant.",
+                    "dsu,scholarship,isee"),
+            new FaqItem("2-ru", Category.SCHOLARSHIPS, "ru", "Что такое DSU стипендия?", "Региональная стипендия.",
+                    "dsu,стипендия,учёба"),
+            new FaqItem("3-en", Category.VISA, "en", "How do I get a visa?", "Apply at the consulate.", null));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void mapsTheSameContentAndIndex() throws IOException {
+        Path file = dir.resolve("faq.snapshot");
+        FaqSnapshotFile.write(ITEMS, file);
+
+        FaqSnapshot built = FaqSnapshot.build(ITEMS);
+        FaqSnapshot mapped = FaqSnapshotFile.map(file);
+
+        assertEquals(built.fingerprint(), mapped.fingerprint());
+        assertEquals(built.fingerprint(), FaqSnapshot.fingerprint(mapped.items()));
+        FaqItem russian = mapped.byId("2-ru");
+        assertEquals("Что такое DSU стипендия?", russian.getQuestion());
+        assertEquals("Региональная стипендия.", russian.getAnswer());
+        assertEquals(Category.SCHOLARSHIPS, russian.getCategory());
+        assertNull(mapped.byId("3-en").getKeywords());
+
+        for (String query : List.of("dsu scholarship", "scholarhsip", "documets", "visa", "what")) {
+            assertEquals(ids(built.index().rank(query, "en", 5)), ids(mapped.index().rank(query, "en", 5)), query);
+        }
+        assertEquals(ids(built.index().rank("стипендии", "ru", 5)), ids(mapped.index().rank("стипендии", "ru", 5)));
+        assertEquals(built.listings().get(Category.SCHOLARSHIPS, "en"),
+                mapped.listings().get(Category.SCHOLARSHIPS, "en"));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("faq.json");
+        Files.writeString(file, "[{\"id\": \"1\"}]".repeat(4));
+
+        assertThrows(IOException.class, () -> FaqSnapshotFile.map(file));
+    }
+
+    private static List<String> ids(List<SearchHit> hits) {
+        return hits.stream().map(hit -> hit.item().getId() + ":" + hit.score()).toList();
+    }
+}
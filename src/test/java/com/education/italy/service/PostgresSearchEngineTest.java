@@ -0,0 +1,142 @@
+package com.education.italy.service;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link PostgresSearchEngine} against a real Postgres: the generated
+ * column, the OR query built from stemmed lexemes, and where ts_rank lands
+ * relative to {@link BotService}'s thresholds.
+ */
+class PostgresSearchEngineTest {
+
+    // As Hibernate creates it from FaqItem
+    private static final String FAQ_ITEM = """
+            CREATE TABLE faq_item (
+                id varchar(50) PRIMARY KEY,
+                category varchar(255) NOT NULL,
+                lang varchar(10) NOT NULL,
+                question text NOT NULL,
+                answer text NOT NULL,
+                keywords text
+            )
+            """;
+
+    private static final List<FaqItem> ITEMS = List.of(
+            new FaqItem("en-1", Category.VISA, "en", "How do I renew my permesso di soggiorno?",
+                    "Book an appointment at the questura before it expires.", "permit renewal"),
+            new FaqItem("en-2", Category.SCHOLARSHIPS, "en", "Who can apply for a regional scholarship?",
+                    "Students below the income limit; the questura is not involved.", "grant"),
+            new FaqItem("en-3", Category.ARRIVAL, "en", "Where do I get a codice fiscale?",
+                    "At the Agenzia delle Entrate, with your passport.", ""),
+            new FaqItem("ru-1", Category.VISA, "ru", "Как получить учебную визу?",
+                    "Подайте документы в визовый центр.", "виза"));
+
+    // Served only if the engine falls back, so any of its hits means the query failed
+    private static final FaqSnapshot FALLBACK = FaqSnapshot.build(List.of(
+            new FaqItem("fallback", Category.VISA, "en", "How do I renew my permesso di soggiorno?",
+                    "questura codice fiscale scholarship", "")));
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbcTemplate;
+    private static PostgresSearchEngine engine;
+
+    @BeforeAll
+    static void startDatabase() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        jdbcTemplate.execute(FAQ_ITEM);
+        engine = new PostgresSearchEngine(jdbcTemplate,
+                new DatabaseGuard(Duration.ofSeconds(5), 5, Duration.ofSeconds(10), new SimpleMeterRegistry()));
+        engine.createSchema();
+        // Every node runs it at startup
+        engine.createSchema();
+        for (FaqItem item : ITEMS) {
+            jdbcTemplate.update("INSERT INTO faq_item (id, category, lang, question, answer, keywords) "
+                            + "VALUES (?, ?, ?, ?, ?, ?)", item.getId(), item.getCategory().name(), item.getLang(),
+                    item.getQuestion(), item.getAnswer(), item.getKeywords());
+        }
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void searchVectorIsGeneratedAndStemmedPerLanguage() {
+        assertEquals("ALWAYS", jdbcTemplate.queryForObject("SELECT is_generated FROM information_schema.columns "
+                + "WHERE table_name = 'faq_item' AND column_name = 'search_vector'", String.class));
+        // Russian stemming for ru rows: "визу" in the question is stored as its stem
+        assertTrue(jdbcTemplate.queryForObject("SELECT search_vector @@ to_tsquery('russian', 'визы') "
+                + "FROM faq_item WHERE id = 'ru-1'", Boolean.class));
+
+        jdbcTemplate.update("UPDATE faq_item SET keywords = 'tessera sanitaria' WHERE id = 'en-3'");
+        try {
+            assertEquals("en-3", engine.search(FALLBACK, "tessera", "en", 10).getFirst().item().getId());
+        } finally {
+            jdbcTemplate.update("UPDATE faq_item SET keywords = '' WHERE id = 'en-3'");
+        }
+    }
+
+    @Test
+    void quotesLexemesWithQuotesAndBackslashes() {
+        List<String> lexemes = List.of("c:\\temp\\visa", "it's", "\\'", "plain");
+        String query = "SELECT " + PostgresSearchEngine.OR_QUERY
+                + " FROM unnest(array_to_tsvector(ARRAY[?, ?, ?, ?]::text[]))";
+        for (String lexeme : lexemes) {
+            assertTrue(jdbcTemplate.queryForObject("SELECT array_to_tsvector(ARRAY[?]::text[]) @@ (" + query + ")",
+                    Boolean.class, lexeme, lexemes.get(0), lexemes.get(1), lexemes.get(2), lexemes.get(3)), lexeme);
+        }
+        assertEquals("", jdbcTemplate.queryForObject("SELECT " + PostgresSearchEngine.OR_QUERY
+                + "::text FROM unnest(to_tsvector('english', 'the and of'))", String.class));
+
+        // End to end: none of these may fail over to the in-memory index
+        for (String text : List.of("C:\\Users\\me\\codice fiscale", "permesso\\soggiorno", "it's the questura's",
+                "the and of", "'); DROP TABLE faq_item; --")) {
+            assertTrue(engine.search(FALLBACK, text, "en", 10).stream()
+                    .noneMatch(hit -> hit.item().getId().equals("fallback")), text);
+        }
+    }
+
+    @Test
+    void ranksOntoTheBotThresholds() {
+        // The question itself: answered outright
+        List<SearchHit> exact = engine.search(FALLBACK, "How do I renew my permesso di soggiorno?", "en", 10);
+        assertEquals("en-1", exact.getFirst().item().getId());
+        assertTrue(exact.getFirst().score() >= BotService.ANSWER_SCORE, String.valueOf(exact.getFirst().score()));
+        double runnerUp = exact.size() > 1 ? exact.get(1).score() : 0;
+        assertTrue(exact.getFirst().score() - runnerUp >= BotService.ANSWER_MARGIN, exact.toString());
+
+        // A word found only in the answers: worth suggesting, not answering
+        List<SearchHit> answerOnly = engine.search(FALLBACK, "questura", "en", 10);
+        assertEquals(2, answerOnly.size());
+        for (SearchHit hit : answerOnly) {
+            assertTrue(hit.score() >= BotService.SUGGEST_SCORE && hit.score() < BotService.ANSWER_SCORE,
+                    hit.toString());
+        }
+
+        // One answer word among several unrelated ones drops below the suggestion line
+        List<SearchHit> diluted = engine.search(FALLBACK, "passport bicycle pizza dormitory cat", "en", 10);
+        assertFalse(diluted.isEmpty());
+        assertTrue(diluted.getFirst().score() < BotService.SUGGEST_SCORE, diluted.toString());
+
+        List<SearchHit> russian = engine.search(FALLBACK, "визы", "ru", 10);
+        assertEquals(List.of("ru-1"), russian.stream().map(hit -> hit.item().getId()).toList());
+        assertTrue(engine.search(FALLBACK, "bicycle", "en", 10).isEmpty());
+    }
+}
@@ -0,0 +1,75 @@
+package com.education.italy.service;
+
+import com.education.italy.model.Category;
+import com.education.italy.model.FaqItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryResultCacheTest {
+
+    private final FaqItem visa = new FaqItem("en-1", Category.VISA, "en", "How do I get a visa?", "...", "visa");
+    private final FaqSnapshot snapshot = FaqSnapshot.build(List.of(visa));
+
+    @Test
+    void normalizesKeys() {
+        assertEquals("en:study visa", QueryResultCache.key("  Study,   VISA?! ", "en"));
+        assertEquals("ru:стипендия", QueryResultCache.key("Стипендия...", "ru"));
+        assertNotEquals(QueryResultCache.key("visa", "en"), QueryResultCache.key("visa", "ru"));
+    }
+
+    @Test
+    void cachesHitsAndEmptyResults() {
+        QueryResultCache cache = new QueryResultCache(100);
+        cache.put("en:visa", snapshot, List.of(new SearchHit(visa, 0.9)));
+        cache.put("en:pizza", snapshot, List.of());
+
+        List<SearchHit> hits = cache.get("en:visa", snapshot);
+        assertSame(visa, hits.get(0).item());
+        assertEquals(0.9, hits.get(0).score());
+        assertEquals(List.of(), cache.get("en:pizza", snapshot));
+        assertNull(cache.get("en:dsu", snapshot));
+        assertEquals(2.0 / 3, cache.stats().hitRatio(), 1e-9);
+    }
+
+    @Test
+    void entriesFromAnOlderSnapshotMiss() {
+        QueryResultCache cache = new QueryResultCache(100);
+        cache.put("en:visa", snapshot, List.of(new SearchHit(visa, 0.9)));
+
+        assertNull(cache.get("en:visa", FaqSnapshot.build(List.of(visa))));
+    }
+
+    @Test
+    void frequentQuestionsSurviveOneOffs() {
+        QueryResultCache cache = new QueryResultCache(200);
+        for (int i = 0; i < 20; i++) {
+            cache.get("en:visa", snapshot);
+        }
+        cache.put("en:visa", snapshot, List.of());
+        // Push it out of the window into the main space
+        for (int i = 0; i < 5; i++) {
+            cache.put("en:warmup " + i, snapshot, List.of());
+        }
+        // A scan of questions asked once, while "visa" keeps being asked now and then
+        for (int i = 0; i < 10_000; i++) {
+            String key = "en:one off " + i;
+            cache.get(key, snapshot);
+            cache.put(key, snapshot, List.of());
+            if (i % 100 == 0) {
+                cache.get("en:visa", snapshot);
+            }
+        }
+
+        assertNotNull(cache.get("en:visa", snapshot));
+        assertTrue(cache.stats().size() <= 200);
+        assertTrue(cache.stats().evictions() > 0);
+    }
+}
@@ -0,0 +1,57 @@
+package com.education.italy.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UserLanguageCacheTest {
+
+    @Test
+    void countsHitsAndMisses() {
+        UserLanguageCache cache = new UserLanguageCache(100, Duration.ofMinutes(5));
+        cache.put(42L, "en");
+
+        assertEquals("en", cache.get(42L));
+        assertNull(cache.get(43L));
+
+        UserLanguageCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenFull() {
+        // 16 segments of one entry each: two keys in the same segment evict each other
+        UserLanguageCache cache = new UserLanguageCache(16, Duration.ofMinutes(5));
+        for (long chatId = 1; chatId <= 1000; chatId++) {
+            cache.put(chatId, "ru");
+        }
+
+        UserLanguageCache.Stats stats = cache.stats();
+        assertEquals(16, stats.size());
+        assertEquals(1000 - 16, stats.evictions());
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() {
+        UserLanguageCache cache = new UserLanguageCache(100, Duration.ofNanos(1));
+        cache.put(7L, "en");
+
+        assertNull(cache.get(7L));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void invalidateRemovesEntry() {
+        UserLanguageCache cache = new UserLanguageCache(100, Duration.ofMinutes(5));
+        cache.put(7L, "en");
+        cache.invalidate(7L);
+
+        assertNull(cache.get(7L));
+        assertEquals(0, cache.stats().size());
+    }
+}
@@ -0,0 +1,71 @@
+package com.education.italy.service;
+
+import com.education.italy.repository.UserRepository;
+import com.education.italy.repository.UserWriteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UserServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserWriteRepository writeRepository = mock(UserWriteRepository.class);
+    private final DatabaseGuard guard = new DatabaseGuard(Duration.ofSeconds(5), 5, Duration.ofSeconds(10),
+            new SimpleMeterRegistry());
+
+    @Test
+    void registersWithOneStatementAndSkipsCachedUsers() {
+        when(writeRepository.register(eq(1L), eq("ru"), any())).thenReturn("en");
+        UserService service = new UserService(userRepository, writeRepository, guard, event -> { }, 100,
+                Duration.ofMinutes(1), Duration.ZERO);
+
+        service.registerUser(1);
+        service.registerUser(1);
+
+        verify(writeRepository, times(1)).register(anyLong(), any(), any());
+        verifyNoInteractions(userRepository);
+        assertEquals("en", service.getUserLanguage(1));
+    }
+
+    @Test
+    void coalescesLanguageChangesIntoOneBatch() {
+        List<Object> published = new ArrayList<>();
+        // Long interval so only the explicit flush writes
+        UserService service = new UserService(userRepository, writeRepository, guard, published::add, 100,
+                Duration.ofMinutes(1), Duration.ofHours(1));
+
+        service.updateUserLanguage(1, "en");
+        service.updateUserLanguage(1, "ru");
+        service.updateUserLanguage(2, "en");
+        assertEquals("ru", service.getUserLanguage(1));
+        assertEquals(2, service.pendingWrites());
+        // Peers must not reload before the batch is stored
+        assertEquals(List.of(), published);
+
+        service.flushPendingLanguages();
+        service.flushPendingLanguages();
+
+        verify(writeRepository, times(1)).upsertLanguages(eq(Map.of(1L, "ru", 2L, "en")), any(LocalDateTime.class));
+        assertEquals(0, service.pendingWrites());
+        assertEquals(2, published.size());
+        assertEquals(Set.of(new UserLanguageChangedEvent(1), new UserLanguageChangedEvent(2)),
+                Set.copyOf(published));
+        service.shutdown();
+    }
+}